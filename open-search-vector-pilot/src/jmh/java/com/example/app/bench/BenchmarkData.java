@@ -0,0 +1,39 @@
+package com.example.app.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Random;
+
+final class BenchmarkData {
+    // A typical Goodreads record, as found in books.json
+    static final String BOOK_JSON = "{\"book_id\": 2, \"title\": \"Harry Potter and the Order of the Phoenix (Harry Potter, #5)\","
+        + " \"author\": \"J.K. Rowling\", \"language\": \"eng\", \"average_rating\": 4.5, \"ratings_count\": 2628006,"
+        + " \"publication_date\": \"2004-09\", \"format\": \"Paperback\", \"publisher\": \"Scholastic Inc.\","
+        + " \"description\": \"There is a door at the end of a silent corridor. And it's haunting Harry Pottter's dreams."
+        + " Why else would he be waking in the middle of the night, screaming in terror? Harry has a lot on his mind for this,"
+        + " his fifth year at Hogwarts: a Defense Against the Dark Arts teacher with a personality like poisoned honey;"
+        + " a big surprise on the Gryffindor Quidditch team; and the looming terror of the Ordinary Wizarding Level exams.\","
+        + " \"image_url\": \"https://i.gr-assets.com/images/S/compressed.photo.goodreads.com/books/1546910265l/2._SX98_.jpg\","
+        + " \"shelves\": \"['to-read', 'currently-reading', 'fantasy', 'favorites', 'young-adult', 'fiction']\"}";
+
+    private BenchmarkData() {
+    }
+
+    static JsonNode book(ObjectMapper mapper) {
+        try {
+            return mapper.readTree(BOOK_JSON);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static float[] vector(int dims) {
+        Random random = new Random(42);
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = (float) random.nextGaussian() * 0.05f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.app.bench;
+
+import com.example.app.service.VectorJson;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Turning an embedding into an indexable document source: the original
+ * float[] -> List<Float> -> ArrayNode -> String path against the streaming
+ * float[] path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentEnrichmentBenchmark {
+    @Param({"384", "1536"})
+    public int dims;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JsonNode book;
+    private float[] embedding;
+
+    @Setup
+    public void setup() {
+        book = BenchmarkData.book(mapper);
+        embedding = BenchmarkData.vector(dims);
+    }
+
+    // The conversion the old getEmbedding did on every call
+    @Benchmark
+    public List<Float> boxedEmbeddingList() {
+        List<Float> floatList = new ArrayList<>(embedding.length);
+        for (float v : embedding) floatList.add(v);
+        return floatList;
+    }
+
+    @Benchmark
+    public String arrayNodeSource() throws IOException {
+        List<Float> floatList = boxedEmbeddingList();
+        ObjectNode node = book.deepCopy();
+        ArrayNode embeddingArray = mapper.createArrayNode();
+        for (Float v : floatList) {
+            embeddingArray.add(v);
+        }
+        node.set("embedding", embeddingArray);
+        return mapper.writeValueAsString(node);
+    }
+
+    @Benchmark
+    public byte[] streamingSource() throws IOException {
+        return VectorJson.withEmbedding(mapper, book, embedding);
+    }
+}
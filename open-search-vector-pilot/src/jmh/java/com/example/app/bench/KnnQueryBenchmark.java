@@ -0,0 +1,66 @@
+package com.example.app.bench;
+
+import com.example.app.service.VectorJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.index.query.WrapperQueryBuilder;
+
+/**
+ * kNN query JSON for vectorSearchBooks: the original boxed list inside nested
+ * HashMaps (with a fresh ObjectMapper per query) against the streaming writer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KnnQueryBenchmark {
+    @Param({"384", "1536"})
+    public int dims;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private float[] query;
+
+    @Setup
+    public void setup() {
+        query = BenchmarkData.vector(dims);
+    }
+
+    @Benchmark
+    public WrapperQueryBuilder hashMapQuery() throws IOException {
+        Map<String, Object> knnQuery = new HashMap<>();
+        Map<String, Object> embeddingQuery = new HashMap<>();
+        List<Float> embeddingList = new ArrayList<>(query.length);
+        for (float v : query) {
+            embeddingList.add(v);
+        }
+        embeddingQuery.put("vector", embeddingList);
+        embeddingQuery.put("k", 5);
+        knnQuery.put("embedding", embeddingQuery);
+        Map<String, Object> queryMap = new HashMap<>();
+        queryMap.put("knn", knnQuery);
+        return new WrapperQueryBuilder(new ObjectMapper().writeValueAsString(queryMap));
+    }
+
+    @Benchmark
+    public WrapperQueryBuilder streamingQuery() throws IOException {
+        return new WrapperQueryBuilder(VectorJson.knnQuery(mapper, query, 5));
+    }
+}
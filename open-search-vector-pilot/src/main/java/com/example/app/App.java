@@ -1,12 +1,15 @@
 package com.example.app;
 
+import com.example.app.opensearch.OpenSearchConnection;
+import java.io.IOException;
+
 public class App {
     public static void main(String[] args) {
-        BookCrudApp crudApp = new BookCrudApp();
-        try {
-            crudApp.runCrudMenu();
-        } finally {
-            crudApp.close();
+        // Same books.opensearch.* settings and pooled client setup as the Spring app
+        try (OpenSearchConnection connection = OpenSearchConnection.fromClasspath()) {
+            new BookCrudApp(connection.client()).runCrudMenu();
+        } catch (IOException e) {
+            System.err.println("Error with OpenSearch connection: " + e.getMessage());
         }
     }
 }
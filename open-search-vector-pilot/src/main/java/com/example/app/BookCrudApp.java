@@ -1,7 +1,6 @@
 package com.example.app;
 
 import org.opensearch.client.RestHighLevelClient;
-import org.opensearch.client.RestClient;
 import org.opensearch.client.RequestOptions;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.index.IndexResponse;
@@ -11,7 +10,6 @@ import org.opensearch.action.update.UpdateRequest;
 import org.opensearch.action.delete.DeleteRequest;
 import org.opensearch.action.delete.DeleteResponse;
 import org.opensearch.common.xcontent.XContentType;
-import org.apache.http.HttpHost;
 import org.opensearch.action.search.SearchRequest;
 import org.opensearch.action.search.SearchResponse;
 import org.opensearch.search.SearchHit;
@@ -34,28 +32,22 @@ import java.util.Map;
 import org.opensearch.action.bulk.BulkRequest;
 import org.opensearch.action.bulk.BulkResponse;
 import java.util.Scanner;
+import com.example.app.service.VectorJson;
 
 public class BookCrudApp {
-    private static final String INDEX = "vector-books-index";
-    private static final int EMBEDDING_DIM = 384;
+    // The alias the service reads and writes through
+    private static final String INDEX = System.getProperty("books.index.alias", "vector-books-index");
+    // Same property as the service; this console app defaults to the local MiniLM model's 384 dimensions
+    private static final int EMBEDDING_DIM = Integer.getInteger("books.embedding.dimensions", 384);
     private static final String[] SEARCHABLE_FIELDS = {"author", "title"};
     private final RestHighLevelClient client;
     private final ObjectMapper mapper = JsonMapper.builder()
                 .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
                 .build();
 
-    public BookCrudApp() {
-        this.client = new RestHighLevelClient(
-            RestClient.builder(new HttpHost("localhost", 9200, "http"))
-        );
-    }
-
-    public void close() {
-        try {
-            client.close();
-        } catch (IOException e) {
-            System.err.println("Error closing client: " + e.getMessage());
-        }
+    // The caller owns the client and closes it
+    public BookCrudApp(RestHighLevelClient client) {
+        this.client = client;
     }
 
     public void createIndexIfNotExists() {
@@ -219,21 +211,7 @@ public class BookCrudApp {
         try {
             SearchRequest searchRequest = new SearchRequest(INDEX);
             SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-            StringBuilder vectorBuilder = new StringBuilder("[");
-            for (int i = 0; i < queryVector.length; i++) {
-                vectorBuilder.append(queryVector[i]);
-                if (i < queryVector.length - 1) vectorBuilder.append(",");
-            }
-            vectorBuilder.append("]");
-            String knnQuery = "{" +
-                "  \"knn\": {" +
-                "    \"embedding\": {" +
-                "      \"vector\": " + vectorBuilder.toString() + "," +
-                "      \"k\": " + k +
-                "    }" +
-                "  }" +
-                "}";
-            searchSourceBuilder.query(new org.opensearch.index.query.WrapperQueryBuilder(knnQuery));
+            searchSourceBuilder.query(new org.opensearch.index.query.WrapperQueryBuilder(VectorJson.knnQuery(mapper, queryVector, k)));
             searchRequest.source(searchSourceBuilder);
             SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
             System.out.println("Vector search results:");
@@ -299,7 +277,6 @@ public class BookCrudApp {
                         break;
                     case "0":
                         System.out.println("Exiting...");
-                        close();
                         return;
                     default:
                         System.out.println("Invalid option.");
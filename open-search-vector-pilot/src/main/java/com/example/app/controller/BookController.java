@@ -1,20 +1,63 @@
 package com.example.app.controller;
 
+import com.example.app.embedding.EmbeddingUnavailableException;
+import com.example.app.opensearch.RebuildInProgressException;
+import com.example.app.service.BookFilter;
+import com.example.app.service.BookIngestService;
+import com.example.app.service.BookSearchService;
 import com.example.app.service.BookService;
+import com.example.app.service.BulkEditService;
+import com.example.app.service.SourceProjection;
+import com.example.app.service.VectorQuery;
+import org.opensearch.OpenSearchStatusException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
     @Autowired
     private BookService bookService;
+    @Autowired
+    private BookIngestService ingestService;
+    @Autowired
+    private BulkEditService bulkEditService;
+    @Autowired
+    private BookSearchService searchService;
+    // Default _source fields per endpoint; blank means every field except the embedding
+    @Value("${books.search.fields.read:}")
+    private String readFields;
+    @Value("${books.search.fields.list:}")
+    private String listFields;
+    @Value("${books.search.fields.search:}")
+    private String searchFields;
+    @Value("${books.search.fields.vector-search:}")
+    private String vectorSearchFields;
+    @Value("${books.search.fields.hybrid-search:}")
+    private String hybridSearchFields;
 
+    // rebuild=true loads into a new index version and swaps it in when complete
     @PostMapping("/bulk")
-    public ResponseEntity<?> bulkCreate(@RequestParam String filePath) {
-        return ResponseEntity.ok(bookService.createFromFile(filePath));
+    public ResponseEntity<?> bulkCreate(@RequestParam String filePath,
+                                        @RequestParam(defaultValue = "false") boolean rebuild) {
+        return ResponseEntity.ok(ingestService.createFromFile(filePath, rebuild));
+    }
+
+    // Zero-downtime copy into a new index version with the current mapping and settings
+    @PostMapping("/reindex")
+    public ResponseEntity<?> reindex() {
+        return ResponseEntity.ok(ingestService.reindex());
     }
 
     @PostMapping
@@ -23,8 +66,12 @@ public class BookController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> read(@PathVariable String id) {
-        return ResponseEntity.ok(bookService.readDocument(id));
+    public CompletableFuture<ResponseEntity<?>> read(@PathVariable String id,
+                                                     @RequestParam(required = false) String fields,
+                                                     @RequestParam(defaultValue = "false") boolean includeVector) {
+        return bookService.readDocumentAsync(id, SourceProjection.of(fields, includeVector, readFields))
+            .thenApply(book -> book.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Document not found.")));
     }
 
     @PutMapping("/{id}")
@@ -37,18 +84,146 @@ public class BookController {
         return ResponseEntity.ok(bookService.deleteDocument(id));
     }
 
+    // NDJSON, one {"id":..,"doc":{..}} per line; changed text is re-embedded in batches
+    @PostMapping("/bulk-update")
+    public ResponseEntity<?> bulkUpdate(@RequestBody String ndjson) {
+        return ResponseEntity.ok(bulkEditService.bulkUpdate(ndjson));
+    }
+
+    // NDJSON, one {"id":..} per line
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody String ndjson) {
+        return ResponseEntity.ok(bulkEditService.bulkDelete(ndjson));
+    }
+
+    @PostMapping("/delete-by-query")
+    public ResponseEntity<?> deleteByQuery(@RequestParam(required = false) String language,
+                                           @RequestParam(required = false) String format,
+                                           @RequestParam(required = false) String publisher,
+                                           @RequestParam(required = false) Float minRating,
+                                           @RequestParam(required = false) Float maxRating,
+                                           @RequestParam(required = false) Integer minRatingsCount) {
+        BookFilter filter = BookFilter.of(language, format, publisher, minRating, maxRating, minRatingsCount);
+        return ResponseEntity.ok(bulkEditService.deleteByQuery(filter));
+    }
+
+    // Sets the body's metadata fields on every matching document
+    @PostMapping("/update-by-query")
+    public ResponseEntity<?> updateByQuery(@RequestParam(required = false) String language,
+                                           @RequestParam(required = false) String format,
+                                           @RequestParam(required = false) String publisher,
+                                           @RequestParam(required = false) Float minRating,
+                                           @RequestParam(required = false) Float maxRating,
+                                           @RequestParam(required = false) Integer minRatingsCount,
+                                           @RequestBody String json) {
+        BookFilter filter = BookFilter.of(language, format, publisher, minRating, maxRating, minRatingsCount);
+        return ResponseEntity.ok(bulkEditService.updateByQuery(filter, json));
+    }
+
     @GetMapping
-    public ResponseEntity<?> list() {
-        return ResponseEntity.ok(bookService.listDocuments());
+    public ResponseEntity<?> list(@RequestParam(required = false) String fields,
+                                  @RequestParam(defaultValue = "false") boolean includeVector,
+                                  @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(bookService.listDocuments(SourceProjection.of(fields, includeVector, listFields), size));
+    }
+
+    // Streams all documents as NDJSON; resume with the cursor of the last line received
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String fields,
+                                    @RequestParam(defaultValue = "false") boolean includeVector,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(defaultValue = "500") int pageSize) {
+        Object[] searchAfter;
+        try {
+            searchAfter = bookService.parseExportCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(out -> out.write(message));
+        }
+        SourceProjection projection = SourceProjection.of(fields, includeVector, null);
+        StreamingResponseBody body = out -> bookService.exportDocuments(out, projection, searchAfter, pageSize);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> search(@RequestParam String field, @RequestParam String value) {
-        return ResponseEntity.ok(bookService.searchBooks(field, value));
+    public CompletableFuture<ResponseEntity<?>> search(@RequestParam String field, @RequestParam String value,
+                                                       @RequestParam(required = false) String fields,
+                                                       @RequestParam(defaultValue = "false") boolean includeVector) {
+        return searchService.searchBooksAsync(field, value, SourceProjection.of(fields, includeVector, searchFields))
+            .thenApply(ResponseEntity::ok);
     }
 
+    // Filters run inside the kNN search; language, format and publisher take comma-separated values
     @GetMapping("/vector-search")
-    public ResponseEntity<?> vectorSearch(@RequestParam String query) {
-        return ResponseEntity.ok(bookService.vectorSearchBooks(query));
+    public CompletableFuture<ResponseEntity<?>> vectorSearch(@RequestParam String query,
+                                                             @RequestParam(required = false) String language,
+                                                             @RequestParam(required = false) String format,
+                                                             @RequestParam(required = false) String publisher,
+                                                             @RequestParam(required = false) Float minRating,
+                                                             @RequestParam(required = false) Float maxRating,
+                                                             @RequestParam(required = false) Integer minRatingsCount,
+                                                             @RequestParam(required = false) Integer k,
+                                                             @RequestParam(required = false) Integer numCandidates,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String fields,
+                                                             @RequestParam(defaultValue = "false") boolean includeVector) {
+        BookFilter filter = BookFilter.of(language, format, publisher, minRating, maxRating, minRatingsCount);
+        VectorQuery vectorQuery = searchService.vectorQuery(query, filter, k, numCandidates, size);
+        return searchService.vectorSearchBooksAsync(vectorQuery, SourceProjection.of(fields, includeVector, vectorSearchFields))
+            .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/hybrid-search")
+    public CompletableFuture<ResponseEntity<?>> hybridSearch(@RequestParam String query,
+                                                             @RequestParam(required = false) String fusion,
+                                                             @RequestParam(required = false) String fields,
+                                                             @RequestParam(defaultValue = "false") boolean includeVector) {
+        return searchService.hybridSearchBooksAsync(query, fusion, SourceProjection.of(fields, includeVector, hybridSearchFields))
+            .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/embedding-cache/stats")
+    public ResponseEntity<?> embeddingCacheStats() {
+        return ResponseEntity.ok(bookService.embeddingCacheStats());
+    }
+
+    // Rate limit, bulkhead, circuit and hedging counters, and the documents waiting for a deferred embedding
+    @GetMapping("/embedding-provider/stats")
+    public ResponseEntity<?> embeddingProviderStats() {
+        return ResponseEntity.ok(bookService.embeddingProviderStats());
+    }
+
+    @GetMapping("/vector-search/cache/stats")
+    public ResponseEntity<?> vectorSearchCacheStats() {
+        return ResponseEntity.ok(searchService.vectorSearchCacheStats());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(RebuildInProgressException.class)
+    public ResponseEntity<String> conflict(RebuildInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // Rate limited, circuit open or timed out: the client retries instead of holding a request thread
+    @ExceptionHandler(EmbeddingUnavailableException.class)
+    public ResponseEntity<String> embeddingUnavailable(EmbeddingUnavailableException e) {
+        long retryAfterSeconds = Math.max(1, (e.retryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body("Embedding provider unavailable: " + e.getMessage());
+    }
+
+    @ExceptionHandler(OpenSearchStatusException.class)
+    public ResponseEntity<String> openSearchError(OpenSearchStatusException e) {
+        return ResponseEntity.status(e.status().getStatus()).body("OpenSearch error: " + e.getMessage());
+    }
+
+    @ExceptionHandler({IOException.class, UncheckedIOException.class})
+    public ResponseEntity<String> openSearchUnavailable(Exception e) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("OpenSearch request failed: " + e.getMessage());
     }
 }
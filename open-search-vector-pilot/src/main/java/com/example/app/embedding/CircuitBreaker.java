@@ -0,0 +1,77 @@
+package com.example.app.embedding;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failed
+ * calls in a row it opens and rejects calls for {@code openMillis}; then one
+ * trial call is let through (half-open), which closes the circuit on success
+ * and opens it again on failure.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        if (failureThreshold < 1 || openMillis < 1) throw new IllegalArgumentException("Threshold and open time must be positive");
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.clock = clock;
+    }
+
+    // False when the call must fail fast; a true must be followed by onSuccess or onFailure
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) return true;
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            trialInFlight = false;
+        }
+    }
+
+    // The call let through by tryAcquire was never made
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) trialInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    // How long until the next trial call is allowed; 0 unless open
+    public synchronized long retryAfterMillis() {
+        if (state != State.OPEN) return 0;
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (clock.getAsLong() - openedAt)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.app.embedding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Append-only, memory-mapped store of embeddings keyed by a 32-byte content hash.
+ * The file is mapped read/write and grows by doubling up to {@code maxBytes};
+ * once full, new entries are simply not persisted. The key index is rebuilt
+ * by scanning the file on open, so the cache survives restarts.
+ *
+ * Layout: header [magic int][version int][end offset long], then records of
+ * [32-byte key][dimension int][dimension floats].
+ */
+public class DiskEmbeddingStore implements Closeable {
+    private static final int MAGIC = 0x454d4243; // "EMBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int KEY_BYTES = 32;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    private final FileChannel channel;
+    private final long maxBytes;
+    private final Map<String, Integer> offsets = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int end;
+    private boolean full;
+
+    public DiskEmbeddingStore(Path path, long maxBytes) throws IOException {
+        this.maxBytes = Math.min(maxBytes, Integer.MAX_VALUE);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            map(Math.min(INITIAL_CAPACITY, this.maxBytes));
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            end = HEADER_BYTES;
+            buffer.putLong(8, end);
+        } else {
+            map(size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an embedding cache file: " + path);
+            }
+            end = (int) buffer.getLong(8);
+            loadIndex();
+        }
+    }
+
+    public synchronized float[] get(byte[] key) {
+        Integer offset = offsets.get(HexFormat.of().formatHex(key));
+        if (offset == null) return null;
+        int dim = buffer.getInt(offset + KEY_BYTES);
+        float[] vector = new float[dim];
+        int pos = offset + KEY_BYTES + 4;
+        for (int i = 0; i < dim; i++) {
+            vector[i] = buffer.getFloat(pos + i * 4);
+        }
+        return vector;
+    }
+
+    public synchronized void put(byte[] key, float[] vector) throws IOException {
+        String hex = HexFormat.of().formatHex(key);
+        if (full || offsets.containsKey(hex)) return;
+        int recordBytes = KEY_BYTES + 4 + vector.length * 4;
+        if ((long) end + recordBytes > buffer.capacity()) {
+            long needed = (long) end + recordBytes;
+            if (needed > maxBytes) {
+                full = true;
+                return;
+            }
+            map(Math.min(Math.max(needed, (long) buffer.capacity() * 2), maxBytes));
+        }
+        int offset = end;
+        buffer.put(offset, key, 0, KEY_BYTES);
+        buffer.putInt(offset + KEY_BYTES, vector.length);
+        int pos = offset + KEY_BYTES + 4;
+        for (int i = 0; i < vector.length; i++) {
+            buffer.putFloat(pos + i * 4, vector[i]);
+        }
+        end += recordBytes;
+        // Publish the record only after it is fully written
+        buffer.putLong(8, end);
+        offsets.put(hex, offset);
+    }
+
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    private void loadIndex() {
+        int pos = HEADER_BYTES;
+        byte[] key = new byte[KEY_BYTES];
+        while (pos + KEY_BYTES + 4 <= end) {
+            buffer.get(pos, key, 0, KEY_BYTES);
+            int dim = buffer.getInt(pos + KEY_BYTES);
+            offsets.put(HexFormat.of().formatHex(key), pos);
+            pos += KEY_BYTES + 4 + dim * 4;
+        }
+    }
+
+    private void map(long capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
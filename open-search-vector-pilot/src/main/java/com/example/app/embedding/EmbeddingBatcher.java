@@ -0,0 +1,70 @@
+package com.example.app.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+/**
+ * Groups texts into batches bounded by count and by an estimated token budget,
+ * and calls {@link EmbeddingModel#embed(List)} once per batch. Results come
+ * back in the same order as the input texts.
+ */
+public class EmbeddingBatcher {
+    // Rough estimate used by OpenAI tokenizers for English text
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final EmbeddingModel embeddingModel;
+    private final int maxBatchSize;
+    private final int maxBatchTokens;
+    private IntConsumer batchListener = size -> { };
+
+    public EmbeddingBatcher(EmbeddingModel embeddingModel, int maxBatchSize, int maxBatchTokens) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be >= 1");
+        if (maxBatchTokens < 1) throw new IllegalArgumentException("maxBatchTokens must be >= 1");
+        this.embeddingModel = embeddingModel;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchTokens = maxBatchTokens;
+    }
+
+    // Told the size of every batch sent to the model
+    public EmbeddingBatcher onBatch(IntConsumer batchListener) {
+        this.batchListener = batchListener;
+        return this;
+    }
+
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> results = new ArrayList<>(texts.size());
+        List<String> batch = new ArrayList<>(Math.min(texts.size(), maxBatchSize));
+        int batchTokens = 0;
+        for (String text : texts) {
+            int tokens = estimateTokens(text);
+            // A single text over the budget still goes out, on its own
+            if (!batch.isEmpty() && (batch.size() >= maxBatchSize || batchTokens + tokens > maxBatchTokens)) {
+                results.addAll(embedBatch(batch));
+                batch.clear();
+                batchTokens = 0;
+            }
+            batch.add(text);
+            batchTokens += tokens;
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(embedBatch(batch));
+        }
+        return results;
+    }
+
+    private List<float[]> embedBatch(List<String> batch) {
+        batchListener.accept(batch.size());
+        List<float[]> vectors = embeddingModel.embed(List.copyOf(batch));
+        if (vectors == null || vectors.size() != batch.size()) {
+            throw new IllegalStateException("Embedding model returned "
+                + (vectors == null ? 0 : vectors.size()) + " vectors for " + batch.size() + " texts");
+        }
+        return vectors;
+    }
+
+    static int estimateTokens(String text) {
+        return Math.max(1, (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN);
+    }
+}
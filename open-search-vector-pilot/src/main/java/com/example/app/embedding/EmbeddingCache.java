@@ -0,0 +1,91 @@
+package com.example.app.embedding;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed embedding cache: the key is SHA-256 of the model id and
+ * the text. Entries live in a bounded W-TinyLFU in-memory cache, backed by an
+ * optional on-disk tier.
+ */
+public class EmbeddingCache {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+    private final String modelId;
+    private final Cache<String, float[]> memory;
+    private final DiskEmbeddingStore disk;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddingCache(String modelId, long maxEntries, DiskEmbeddingStore disk) {
+        this.modelId = modelId;
+        this.memory = Caffeine.newBuilder().maximumSize(maxEntries).build();
+        this.disk = disk;
+    }
+
+    public float[] get(String text) {
+        byte[] key = key(text);
+        String hex = HexFormat.of().formatHex(key);
+        float[] vector = memory.getIfPresent(hex);
+        if (vector != null) {
+            hits.increment();
+            return vector;
+        }
+        if (disk != null) {
+            vector = disk.get(key);
+            if (vector != null) {
+                diskHits.increment();
+                memory.put(hex, vector);
+                return vector;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String text, float[] vector) {
+        if (vector == null || vector.length == 0) return;
+        byte[] key = key(text);
+        memory.put(HexFormat.of().formatHex(key), vector);
+        if (disk != null) {
+            try {
+                disk.put(key, vector);
+            } catch (IOException e) {
+                log.warn("Could not persist embedding: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), diskHits.sum(), misses.sum(), memory.estimatedSize(),
+            disk != null ? disk.size() : 0);
+    }
+
+    private byte[] key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Stats(long hits, long diskHits, long misses, long memoryEntries, long diskEntries) {
+        @JsonProperty
+        public double hitRatio() {
+            long total = hits + diskHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + diskHits) / total;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.app.embedding;
+
+import com.example.app.metrics.BookMetrics;
+import com.example.app.search.SingleFlight;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single entry point for embeddings: checks the content-addressed cache and
+ * only sends cache misses to the {@link EmbeddingModel}, in batches, through
+ * the {@link ResilientEmbeddingModel} limits unless they are disabled.
+ */
+@Service
+public class EmbeddingService {
+    @Autowired
+    private EmbeddingModel embeddingModel;
+    @Autowired
+    private BookMetrics metrics;
+    @Value("${books.embedding.model-id:${spring.ai.azure.openai.embedding.deployment-name:default}}")
+    private String modelId;
+    @Value("${books.embedding.batch-size:64}")
+    private int batchSize;
+    @Value("${books.embedding.batch-max-tokens:8000}")
+    private int batchMaxTokens;
+    @Value("${books.embedding.cache.max-entries:100000}")
+    private long cacheMaxEntries;
+    @Value("${books.embedding.cache.disk-path:}")
+    private String cacheDiskPath;
+    @Value("${books.embedding.cache.disk-max-mb:1024}")
+    private long cacheDiskMaxMb;
+    @Value("${books.embedding.query-cache.max-entries:10000}")
+    private long queryCacheMaxEntries;
+    @Value("${books.embedding.async-threads:32}")
+    private int asyncThreads;
+    @Value("${books.embedding.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+    @Value("${books.embedding.rate-limit.requests-per-minute:0}")
+    private long requestsPerMinute;
+    @Value("${books.embedding.rate-limit.tokens-per-minute:0}")
+    private long tokensPerMinute;
+    @Value("${books.embedding.rate-limit.max-wait-ms:2000}")
+    private long rateLimitMaxWaitMs;
+    @Value("${books.embedding.bulkhead.max-concurrent:16}")
+    private int maxConcurrent;
+    @Value("${books.embedding.bulkhead.max-wait-ms:1000}")
+    private long bulkheadMaxWaitMs;
+    @Value("${books.embedding.timeout-ms:10000}")
+    private long timeoutMs;
+    @Value("${books.embedding.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+    @Value("${books.embedding.circuit-breaker.open-ms:30000}")
+    private long circuitOpenMs;
+    @Value("${books.embedding.hedge.delay-ms:0}")
+    private long hedgeDelayMs;
+    @Value("${books.embedding.hedge.max-texts:1}")
+    private int hedgeMaxTexts;
+
+    private EmbeddingCache cache;
+    private EmbeddingCache queryCache;
+    private DiskEmbeddingStore disk;
+    private final SingleFlight<String, float[]> queryFlight = new SingleFlight<>();
+    private ExecutorService asyncExecutor;
+    private DistributionSummary batchSizes;
+    private EmbeddingModel provider; // embeddingModel, behind the resilience limits when enabled
+    private ResilientEmbeddingModel resilient;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!cacheDiskPath.isBlank()) {
+            disk = new DiskEmbeddingStore(Paths.get(cacheDiskPath), cacheDiskMaxMb * 1024 * 1024);
+        }
+        // Vectors of different models must never be served for each other, so the local model keys its own entries
+        String cacheModelId = embeddingModel instanceof LocalEmbeddingModel local ? local.modelId() : modelId;
+        cache = new EmbeddingCache(cacheModelId, cacheMaxEntries, disk);
+        provider = embeddingModel;
+        if (resilienceEnabled) {
+            resilient = new ResilientEmbeddingModel(embeddingModel, new ResilienceSettings(requestsPerMinute,
+                tokensPerMinute, rateLimitMaxWaitMs, maxConcurrent, bulkheadMaxWaitMs, timeoutMs, failureThreshold,
+                circuitOpenMs, hedgeDelayMs, hedgeMaxTexts));
+            provider = resilient;
+        }
+        // Query texts are short and hot; keep them apart so they are not evicted by bulk ingest
+        queryCache = new EmbeddingCache(cacheModelId, queryCacheMaxEntries, null);
+        // The model client blocks, so async callers borrow one of these instead of a request thread
+        AtomicInteger threadIds = new AtomicInteger();
+        asyncExecutor = Executors.newFixedThreadPool(asyncThreads, r -> {
+            Thread t = new Thread(r, "embedding-async-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        MeterRegistry registry = metrics.registry();
+        batchSizes = DistributionSummary.builder("books.embedding.batch.size")
+            .baseUnit("texts")
+            .register(registry);
+        registerCacheMetrics(registry, "documents", cache);
+        registerCacheMetrics(registry, "queries", queryCache);
+        if (resilient != null) {
+            registerResilienceMetrics(registry, resilient);
+        }
+    }
+
+    private static void registerResilienceMetrics(MeterRegistry registry, ResilientEmbeddingModel model) {
+        rejected(registry, model, "rate_limited", ResilientEmbeddingModel.Stats::rateLimited);
+        rejected(registry, model, "bulkhead_full", ResilientEmbeddingModel.Stats::bulkheadFull);
+        rejected(registry, model, "circuit_open", ResilientEmbeddingModel.Stats::circuitOpen);
+        rejected(registry, model, "timeout", ResilientEmbeddingModel.Stats::timeouts);
+        FunctionCounter.builder("books.embedding.hedges", model, m -> m.stats().hedges())
+            .tag("result", "sent")
+            .register(registry);
+        FunctionCounter.builder("books.embedding.hedges", model, m -> m.stats().hedgeWins())
+            .tag("result", "won")
+            .register(registry);
+        // 0 closed, 1 half-open, 2 open
+        Gauge.builder("books.embedding.circuit.state", model, m -> switch (m.circuitState()) {
+                case CLOSED -> 0;
+                case HALF_OPEN -> 1;
+                case OPEN -> 2;
+            })
+            .register(registry);
+        Gauge.builder("books.embedding.in.flight", model, m -> m.stats().inFlight())
+            .register(registry);
+    }
+
+    private static void rejected(MeterRegistry registry, ResilientEmbeddingModel model, String reason,
+                                 ToDoubleFunction<ResilientEmbeddingModel.Stats> count) {
+        FunctionCounter.builder("books.embedding.unavailable", model, m -> count.applyAsDouble(m.stats()))
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    private static void registerCacheMetrics(MeterRegistry registry, String name, EmbeddingCache cache) {
+        counter(registry, name, "hit", cache, c -> c.stats().hits());
+        counter(registry, name, "disk_hit", cache, c -> c.stats().diskHits());
+        counter(registry, name, "miss", cache, c -> c.stats().misses());
+        Gauge.builder("books.embedding.cache.hit.ratio", cache, c -> c.stats().hitRatio())
+            .tag("cache", name)
+            .register(registry);
+        Gauge.builder("books.embedding.cache.size", cache, c -> c.stats().memoryEntries())
+            .tag("cache", name)
+            .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String result, EmbeddingCache cache,
+                                ToDoubleFunction<EmbeddingCache> count) {
+        FunctionCounter.builder("books.embedding.cache.requests", cache, count)
+            .tag("cache", name)
+            .tag("result", result)
+            .register(registry);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        asyncExecutor.shutdownNow();
+        if (resilient != null) resilient.close();
+        if (disk != null) disk.close();
+    }
+
+    public float[] embed(String text) {
+        float[] cached = cache.get(text);
+        if (cached != null) return cached;
+        float[] vector = metrics.observe(BookMetrics.EMBEDDING, "document",
+            () -> provider.embed(List.of(text)).get(0));
+        cache.put(text, vector);
+        return vector;
+    }
+
+    // Search-side embedding: cached, and concurrent identical queries share one provider call
+    public float[] embedQuery(String query) throws Exception {
+        float[] cached = queryCache.get(query);
+        if (cached != null) return cached;
+        return queryFlight.execute(query, () -> {
+            float[] vector = metrics.observe(BookMetrics.EMBEDDING, "query",
+                () -> provider.embed(List.of(query)).get(0));
+            queryCache.put(query, vector);
+            return vector;
+        });
+    }
+
+    public CompletableFuture<float[]> embedQueryAsync(String query) {
+        float[] cached = queryCache.get(query);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        return queryFlight.executeAsync(query, () -> metrics.observeAsync(BookMetrics.EMBEDDING, "query",
+            () -> CompletableFuture.supplyAsync(() -> {
+                float[] vector = provider.embed(List.of(query)).get(0);
+                queryCache.put(query, vector);
+                return vector;
+            }, asyncExecutor)));
+    }
+
+    // Results are in the same order as texts; only cache misses reach the model, each distinct text once
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> results = new ArrayList<>(texts.size());
+        Map<String, List<Integer>> missPositions = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] cached = cache.get(texts.get(i));
+            results.add(cached);
+            if (cached == null) {
+                missPositions.computeIfAbsent(texts.get(i), t -> new ArrayList<>()).add(i);
+            }
+        }
+        if (!missPositions.isEmpty()) {
+            List<String> missTexts = new ArrayList<>(missPositions.keySet());
+            List<float[]> vectors = metrics.observe(BookMetrics.EMBEDDING, "batch",
+                () -> new EmbeddingBatcher(provider, batchSize, batchMaxTokens)
+                    .onBatch(batchSizes::record)
+                    .embedAll(missTexts));
+            for (int i = 0; i < vectors.size(); i++) {
+                for (int position : missPositions.get(missTexts.get(i))) {
+                    results.set(position, vectors.get(i));
+                }
+                cache.put(missTexts.get(i), vectors.get(i));
+            }
+        }
+        return results;
+    }
+
+    public EmbeddingCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    // Null when the resilience limits are disabled
+    public ResilientEmbeddingModel.Stats providerStats() {
+        return resilient != null ? resilient.stats() : null;
+    }
+
+    public EmbeddingCache.Stats queryCacheStats() {
+        return queryCache.stats();
+    }
+}
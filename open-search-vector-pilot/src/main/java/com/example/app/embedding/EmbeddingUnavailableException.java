@@ -0,0 +1,19 @@
+package com.example.app.embedding;
+
+/**
+ * The embedding provider was not called, or did not answer in time: rate
+ * limit or bulkhead exhausted, circuit open, or timeout. Callers should
+ * retry after {@link #retryAfterMillis()}.
+ */
+public class EmbeddingUnavailableException extends RuntimeException {
+    private final long retryAfterMillis;
+
+    public EmbeddingUnavailableException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long retryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.app.embedding;
+
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * With {@code books.embedding.provider=local}, embeddings come from a
+ * sentence-transformers model (all-MiniLM-L6-v2 by default, 384 dimensions)
+ * run in-process with ONNX Runtime instead of the Azure OpenAI deployment.
+ */
+@Configuration
+@ConditionalOnProperty(name = "books.embedding.provider", havingValue = "local")
+public class LocalEmbeddingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public LocalEmbeddingModel localEmbeddingModel(
+            @Value("${books.embedding.local.model-uri:}") String modelUri,
+            @Value("${books.embedding.local.tokenizer-uri:}") String tokenizerUri,
+            @Value("${books.embedding.local.cache-dir:}") String cacheDir,
+            @Value("${books.embedding.local.threads:0}") int threads,
+            @Value("${books.embedding.local.batch-size:16}") int batchSize,
+            @Value("${books.embedding.dimensions:384}") int dimensions) throws Exception {
+        TransformersEmbeddingModel model = new TransformersEmbeddingModel();
+        // Blank keeps the library defaults: all-MiniLM-L6-v2 and its tokenizer, downloaded once and cached
+        if (!modelUri.isBlank()) model.setModelResource(modelUri);
+        if (!tokenizerUri.isBlank()) model.setTokenizerResource(tokenizerUri);
+        if (!cacheDir.isBlank()) model.setResourceCacheDirectory(cacheDir);
+        model.afterPropertiesSet();
+        String modelId = "local:" + (modelUri.isBlank() ? "all-MiniLM-L6-v2" : modelUri);
+        int inferenceThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        LocalEmbeddingModel local = new LocalEmbeddingModel(model, modelId, dimensions, inferenceThreads, batchSize);
+        local.warmUp();
+        return local;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.app.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Runs an in-JVM embedding model (ONNX on CPU) on a fixed pool of inference
+ * threads. A request is cut into sub-batches that run in parallel, since one
+ * ONNX session call uses a single core for most of its work. The model is
+ * warmed up before it serves requests, so the first caller does not pay for
+ * the model download, session creation and JIT.
+ */
+public class LocalEmbeddingModel implements EmbeddingModel, AutoCloseable {
+    private static final List<String> WARM_UP_TEXTS = List.of(
+        "The Hobbit J.R.R. Tolkien",
+        "A young wizard begins his studies at a school of witchcraft and wizardry.");
+
+    private final EmbeddingModel model;
+    private final String modelId;
+    private final int dimensions;
+    private final int batchSize;
+    private final ExecutorService pool;
+
+    public LocalEmbeddingModel(EmbeddingModel model, String modelId, int dimensions, int threads, int batchSize) {
+        this.model = model;
+        this.modelId = modelId;
+        this.dimensions = dimensions;
+        this.batchSize = Math.max(1, batchSize);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "embedding-inference-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Fails startup when the model does not produce the configured dimension, rather than every index request
+    public void warmUp() {
+        for (float[] vector : embed(WARM_UP_TEXTS)) {
+            if (vector.length != dimensions) {
+                throw new IllegalStateException("Embedding model " + modelId + " returns " + vector.length
+                    + " dimensions, but books.embedding.dimensions is " + dimensions);
+            }
+        }
+    }
+
+    public String modelId() {
+        return modelId;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<CompletableFuture<List<float[]>>> parts = new ArrayList<>();
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<String> part = texts.subList(from, Math.min(texts.size(), from + batchSize));
+            parts.add(CompletableFuture.supplyAsync(() -> model.embed(part), pool));
+        }
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (CompletableFuture<List<float[]>> part : parts) {
+            for (float[] vector : part.join()) {
+                embeddings.add(new Embedding(vector, embeddings.size()));
+            }
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return model.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
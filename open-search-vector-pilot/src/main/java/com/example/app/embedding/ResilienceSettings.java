@@ -0,0 +1,28 @@
+package com.example.app.embedding;
+
+/**
+ * Limits for calls to the embedding provider. A rate of 0 means unlimited and
+ * a hedge delay of 0 turns hedging off.
+ */
+public record ResilienceSettings(
+    long requestsPerMinute,
+    long tokensPerMinute,
+    long rateLimitMaxWaitMillis,
+    int maxConcurrent,
+    long bulkheadMaxWaitMillis,
+    long timeoutMillis,
+    int failureThreshold,
+    long openMillis,
+    long hedgeDelayMillis,
+    int hedgeMaxTexts
+) {
+    public ResilienceSettings {
+        if (requestsPerMinute < 0 || tokensPerMinute < 0 || rateLimitMaxWaitMillis < 0 || bulkheadMaxWaitMillis < 0
+                || hedgeDelayMillis < 0 || hedgeMaxTexts < 0) {
+            throw new IllegalArgumentException("Embedding resilience settings must not be negative");
+        }
+        if (maxConcurrent < 1 || timeoutMillis < 1 || failureThreshold < 1 || openMillis < 1) {
+            throw new IllegalArgumentException("Embedding concurrency, timeout, failure threshold and open time must be positive");
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.app.embedding;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Guards an {@link EmbeddingModel} the way the provider's quota and latency
+ * require. Each call passes, in order:
+ * <ol>
+ * <li>a circuit breaker that fails fast while the provider keeps failing,</li>
+ * <li>request and token buckets matched to the deployment's per-minute quota,</li>
+ * <li>a bulkhead capping concurrent calls, so a slow provider ties up a fixed
+ * number of threads instead of every request thread,</li>
+ * <li>a timeout, after which the caller gets an answer while the provider call
+ * finishes in the background, still holding its bulkhead slot.</li>
+ * </ol>
+ * Small calls (query embeddings) are hedged: if the first attempt has not
+ * answered after the hedge delay, a second one is sent when a slot and
+ * tokens are free right away, and whichever answers first wins.
+ * Calls that are not made or time out throw {@link EmbeddingUnavailableException}.
+ */
+public class ResilientEmbeddingModel implements EmbeddingModel, AutoCloseable {
+    private final EmbeddingModel delegate;
+    private final ResilienceSettings settings;
+    private final TokenBucket requests; // null when unlimited
+    private final TokenBucket tokens;   // null when unlimited
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+    private final ExecutorService calls;
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder bulkheadFull = new LongAdder();
+    private final LongAdder circuitOpen = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public record Stats(String circuit, int inFlight, long rateLimited, long bulkheadFull, long circuitOpen,
+                        long timeouts, long failures, long hedges, long hedgeWins) {
+    }
+
+    public ResilientEmbeddingModel(EmbeddingModel delegate, ResilienceSettings settings) {
+        this(delegate, settings, new CircuitBreaker(settings.failureThreshold(), settings.openMillis()));
+    }
+
+    ResilientEmbeddingModel(EmbeddingModel delegate, ResilienceSettings settings, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.settings = settings;
+        // Bursts of ten seconds' worth, about the window the provider enforces its per-minute quota over
+        this.requests = settings.requestsPerMinute() > 0
+            ? new TokenBucket(settings.requestsPerMinute(), Math.max(1, settings.requestsPerMinute() / 6)) : null;
+        this.tokens = settings.tokensPerMinute() > 0
+            ? new TokenBucket(settings.tokensPerMinute(), Math.max(1, settings.tokensPerMinute() / 6)) : null;
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+        this.breaker = breaker;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.calls = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "embedding-call-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        long tokenCount = 0;
+        for (String text : texts) tokenCount += EmbeddingBatcher.estimateTokens(text);
+        return execute(texts.size(), tokenCount, () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return execute(1, EmbeddingBatcher.estimateTokens(document.getFormattedContent()), () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public Stats stats() {
+        return new Stats(breaker.state().name(), settings.maxConcurrent() - bulkhead.availablePermits(),
+            rateLimited.sum(), bulkheadFull.sum(), circuitOpen.sum(), timeouts.sum(), failures.sum(),
+            hedges.sum(), hedgeWins.sum());
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    @Override
+    public void close() {
+        calls.shutdownNow();
+    }
+
+    private <T> T execute(int texts, long tokenCount, Supplier<T> call) {
+        if (!breaker.tryAcquire()) {
+            circuitOpen.increment();
+            throw new EmbeddingUnavailableException("Embedding provider circuit is open", breaker.retryAfterMillis());
+        }
+        try {
+            if (!acquireRate(tokenCount, settings.rateLimitMaxWaitMillis())) {
+                rateLimited.increment();
+                throw new EmbeddingUnavailableException("Embedding rate limit reached", settings.rateLimitMaxWaitMillis());
+            }
+            if (!bulkhead.tryAcquire(settings.bulkheadMaxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                bulkheadFull.increment();
+                throw new EmbeddingUnavailableException("Too many concurrent embedding calls", settings.bulkheadMaxWaitMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.release();
+            throw new EmbeddingUnavailableException("Interrupted waiting for the embedding provider", 0);
+        } catch (EmbeddingUnavailableException e) {
+            // Turned away before reaching the provider, which says nothing about its health
+            breaker.release();
+            throw e;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.timeoutMillis());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger(1);
+        launch(call, result, attempts, false);
+        try {
+            T value;
+            if (settings.hedgeDelayMillis() > 0 && texts <= settings.hedgeMaxTexts()
+                    && settings.hedgeDelayMillis() < settings.timeoutMillis()) {
+                try {
+                    value = result.get(settings.hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException slow) {
+                    hedge(call, result, attempts, tokenCount);
+                    value = result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } else {
+                value = result.get(settings.timeoutMillis(), TimeUnit.MILLISECONDS);
+            }
+            breaker.onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            breaker.onFailure();
+            throw new EmbeddingUnavailableException("Embedding provider did not answer within "
+                + settings.timeoutMillis() + " ms", breaker.retryAfterMillis());
+        } catch (ExecutionException e) {
+            failures.increment();
+            breaker.onFailure();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.release();
+            throw new EmbeddingUnavailableException("Interrupted waiting for the embedding provider", 0);
+        }
+    }
+
+    private boolean acquireRate(long tokenCount, long maxWaitMillis) throws InterruptedException {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        if (requests != null && !requests.tryAcquire(1, maxWaitNanos)) return false;
+        boolean acquired = false;
+        try {
+            acquired = tokens == null || tokens.tryAcquire(tokenCount, maxWaitNanos);
+            return acquired;
+        } finally {
+            // A call that is not made must not use up the request quota
+            if (!acquired && requests != null) requests.refund(1);
+        }
+    }
+
+    // The attempt holds a bulkhead slot until the provider answers; the first success completes the result
+    // and the result fails only once every attempt has failed
+    private <T> void launch(Supplier<T> call, CompletableFuture<T> result, AtomicInteger attempts, boolean hedge) {
+        try {
+            calls.execute(() -> {
+                try {
+                    T value = call.get();
+                    if (result.complete(value) && hedge) hedgeWins.increment();
+                } catch (Throwable e) {
+                    if (attempts.decrementAndGet() == 0) result.completeExceptionally(e);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            if (attempts.decrementAndGet() == 0) result.completeExceptionally(e);
+        }
+    }
+
+    // Only when it costs no waiting: a hedge that queues behind the limits would not cut the tail
+    private <T> void hedge(Supplier<T> call, CompletableFuture<T> result, AtomicInteger attempts, long tokenCount)
+            throws InterruptedException {
+        if (result.isDone() || !bulkhead.tryAcquire()) return;
+        if (!acquireRate(tokenCount, 0)) {
+            bulkhead.release();
+            return;
+        }
+        attempts.incrementAndGet();
+        hedges.increment();
+        launch(call, result, attempts, true);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.app.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits long text into overlapping windows of whitespace-separated tokens,
+ * so each window fits the model's input and keeps its own meaning instead of
+ * being averaged into one vector. Consecutive windows share {@code overlap}
+ * tokens, so a sentence cut at a boundary appears whole in one of them.
+ */
+public class TextChunker {
+    private final int windowTokens;
+    private final int overlapTokens;
+    private final int maxChunks;
+
+    public TextChunker(int windowTokens, int overlapTokens, int maxChunks) {
+        if (windowTokens < 1 || overlapTokens < 0 || overlapTokens >= windowTokens || maxChunks < 1) {
+            throw new IllegalArgumentException("Chunking needs window > overlap >= 0 and at least one chunk.");
+        }
+        this.windowTokens = windowTokens;
+        this.overlapTokens = overlapTokens;
+        this.maxChunks = maxChunks;
+    }
+
+    // One window when the text fits; windows past maxChunks are dropped
+    public List<String> windows(String text) {
+        String[] tokens = text == null || text.isBlank() ? new String[0] : text.trim().split("\\s+");
+        if (tokens.length <= windowTokens) {
+            return tokens.length == 0 ? List.of() : List.of(String.join(" ", tokens));
+        }
+        int step = windowTokens - overlapTokens;
+        List<String> windows = new ArrayList<>();
+        for (int from = 0; windows.size() < maxChunks; from += step) {
+            int to = Math.min(tokens.length, from + windowTokens);
+            windows.add(String.join(" ", List.of(tokens).subList(from, to)));
+            if (to == tokens.length) break;
+        }
+        return windows;
+    }
+}
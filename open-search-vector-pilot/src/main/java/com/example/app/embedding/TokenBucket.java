@@ -0,0 +1,69 @@
+package com.example.app.embedding;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at {@code perMinute} tokens a minute,
+ * holding at most {@code burst} tokens. A caller may reserve tokens the
+ * bucket does not have yet and waits for them to be refilled, unless the
+ * wait would be longer than it is willing to wait.
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+    private final LongSupplier clock;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(long perMinute, long burst) {
+        this(perMinute, burst, System::nanoTime);
+    }
+
+    TokenBucket(long perMinute, long burst, LongSupplier clock) {
+        if (perMinute < 1 || burst < 1) throw new IllegalArgumentException("Rate and burst must be positive");
+        this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.burst = burst;
+        this.clock = clock;
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    /**
+     * Takes {@code permits} tokens, sleeping until they are refilled.
+     *
+     * @return false, without taking anything, when that would take longer than {@code maxWaitNanos}
+     */
+    public boolean tryAcquire(long permits, long maxWaitNanos) throws InterruptedException {
+        long waitNanos = reserve(permits, maxWaitNanos);
+        if (waitNanos < 0) return false;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                refund(permits);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    // Gives back tokens taken for a call that was not made after all
+    public synchronized void refund(long permits) {
+        tokens = Math.min(burst, tokens + Math.min(permits, burst));
+    }
+
+    // Nanoseconds until the reserved tokens exist, or -1 when that is over maxWaitNanos.
+    // A request larger than the burst could never be served, so it is charged a full burst
+    synchronized long reserve(long permits, long maxWaitNanos) {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        double needed = Math.min(permits, burst);
+        long waitNanos = tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) / tokensPerNano);
+        if (waitNanos > maxWaitNanos) return -1;
+        // Tokens may go negative: later callers queue behind this reservation
+        tokens -= needed;
+        return waitNanos;
+    }
+}
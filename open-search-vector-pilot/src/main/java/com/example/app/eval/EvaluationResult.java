@@ -0,0 +1,9 @@
+package com.example.app.eval;
+
+/**
+ * Quality and speed of one search configuration over a query set. Recall and
+ * nDCG are averaged over the queries; latencies are per query in milliseconds.
+ */
+public record EvaluationResult(String name, int queries, int k, double recall, double ndcg, double qps,
+                               double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+}
@@ -0,0 +1,71 @@
+package com.example.app.eval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Deterministic stand-in for an embedding provider: every word maps to a
+ * fixed pseudo-random +-1 vector seeded by the word, and a text embeds to the
+ * normalized sum of its words. Texts sharing words end up close, which is
+ * enough structure for recall and latency measurements without a network or a
+ * model download. The vectors carry no meaning beyond word overlap.
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+    private final int dims;
+
+    public HashingEmbeddingModel(int dims) {
+        if (dims <= 0) throw new IllegalArgumentException("dims must be positive");
+        this.dims = dims;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(embed(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] sum = new float[dims];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            SplittableRandom random = new SplittableRandom(word.hashCode() * 0x9E3779B97F4A7C15L);
+            long bits = 0;
+            for (int d = 0; d < dims; d++) {
+                if ((d & 63) == 0) bits = random.nextLong();
+                sum[d] += (bits & 1) == 0 ? 1 : -1;
+                bits >>>= 1;
+            }
+        }
+        double norm = 0;
+        for (float v : sum) norm += v * v;
+        if (norm == 0) {
+            // Empty text: a fixed unit vector rather than zeros, which no cosine space accepts
+            sum[0] = 1;
+            return sum;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < dims; d++) sum[d] *= scale;
+        return sum;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent());
+    }
+
+    @Override
+    public int dimensions() {
+        return dims;
+    }
+}
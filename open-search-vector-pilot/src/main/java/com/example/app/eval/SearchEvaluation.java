@@ -0,0 +1,282 @@
+package com.example.app.eval;
+
+import com.example.app.search.ExactVectorSearchEngine;
+import com.example.app.search.InMemoryVectorIndex;
+import com.example.app.search.LocalVectorSearchEngine;
+import com.example.app.search.OpenSearchVectorSearchEngine;
+import com.example.app.search.Quantization;
+import com.example.app.search.QuantizedVectorSearchEngine;
+import com.example.app.search.SpaceType;
+import com.example.app.search.VectorHit;
+import com.example.app.search.VectorSearchEngine;
+import com.example.app.service.BookDocuments;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.http.HttpHost;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * Compares vector search configurations on recall@k, nDCG@k, QPS and latency
+ * percentiles against exact cosine ground truth computed from the same vectors.
+ *
+ * Usage: SearchEvaluation <books.json | export.ndjson> [queries | -] [k] [config ...]
+ *
+ * Documents keep their stored "embedding"; documents without one (like the
+ * bundled books.json) and text queries are embedded with
+ * {@link HashingEmbeddingModel}, so nothing needs the network. The queries file
+ * holds one query per line: plain text, {"query": ".."} or {"vector": [..]}.
+ * Without it (or with "-"), queries are perturbed copies of stored vectors.
+ *
+ * A config is a name with optional key=value settings, e.g.
+ * flat, hnsw:m=16,ef-construction=200,ef-search=100, int8:calibration=1000,
+ * binary:oversample=10, exact:l2, exact:innerproduct, or
+ * opensearch:host=http://localhost:9200,index=vector-books-index,num-candidates=100
+ * to run the kNN query against an index loaded from the same export.
+ */
+public class SearchEvaluation {
+    private static final List<String> DEFAULT_CONFIGS = List.of(
+        "flat", "hnsw", "hnsw:ef-search=20", "int8", "binary:oversample=1", "binary", "exact:l2", "exact:innerproduct");
+    private static final int DEFAULT_DIMS = 1536;
+    private static final int SYNTHETIC_QUERIES = 200;
+    private static final int WARMUP_ROUNDS = 1;
+
+    record Doc(String id, float[] vector) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: SearchEvaluation <books.json | export.ndjson> [queries | -] [k] [config ...]");
+            return;
+        }
+        // books.json has NaN ratings
+        ObjectMapper mapper = JsonMapper.builder().enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS).build();
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        List<String> configs = args.length > 3 ? List.of(args).subList(3, args.length) : DEFAULT_CONFIGS;
+
+        List<JsonNode> nodes = readJson(mapper, Files.readString(Paths.get(args[0])));
+        int dims = storedDims(nodes);
+        HashingEmbeddingModel model = new HashingEmbeddingModel(dims);
+        List<Doc> docs = documents(nodes, model);
+        if (docs.isEmpty()) {
+            System.out.println("No documents with an embedding or text found.");
+            return;
+        }
+        List<float[]> queries = args.length > 1 && !args[1].equals("-")
+            ? queries(mapper, Files.readString(Paths.get(args[1])), model, dims)
+            : perturbed(docs, SYNTHETIC_QUERIES);
+
+        ExactVectorSearchEngine reference = new ExactVectorSearchEngine(SpaceType.COSINESIMIL, dims);
+        docs.forEach(doc -> reference.put(doc.id(), doc.vector(), null));
+        SearchEvaluator evaluator = new SearchEvaluator(reference, queries, k);
+
+        System.out.printf("%d documents, %d dims, %d queries, k=%d, ground truth: exact cosine%n",
+            docs.size(), dims, queries.size(), k);
+        System.out.printf("%-40s %8s %8s %9s %8s %8s %8s %8s %8s%n",
+            "config", "recall", "ndcg", "qps", "p50 ms", "p90 ms", "p99 ms", "max ms", "build s");
+        for (String config : configs) {
+            long start = System.nanoTime();
+            VectorSearchEngine engine = engine(config, dims, docs);
+            double buildSeconds = (System.nanoTime() - start) / 1e9;
+            try {
+                EvaluationResult r = evaluator.evaluate(config, engine, WARMUP_ROUNDS);
+                System.out.printf("%-40s %8.3f %8.3f %9.1f %8.2f %8.2f %8.2f %8.2f %8.1f%n", r.name(), r.recall(),
+                    r.ndcg(), r.qps(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.maxMs(), buildSeconds);
+            } finally {
+                if (engine instanceof AutoCloseable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (Exception ignored) {
+                        // Nothing left to release in a finished run
+                    }
+                }
+            }
+        }
+    }
+
+    // Builds the engine named by the config and loads the documents into it
+    static VectorSearchEngine engine(String config, int dims, List<Doc> docs) {
+        int colon = config.indexOf(':');
+        String name = colon < 0 ? config : config.substring(0, colon);
+        Map<String, String> settings = settings(colon < 0 ? "" : config.substring(colon + 1));
+        InMemoryVectorIndex index;
+        switch (name) {
+            case "flat":
+                index = new LocalVectorSearchEngine(dims, 16, 200, 100, Integer.MAX_VALUE);
+                break;
+            case "hnsw":
+                index = new LocalVectorSearchEngine(dims, setting(settings, "m", 16),
+                    setting(settings, "ef-construction", 200), setting(settings, "ef-search", 100), 1);
+                break;
+            case "int8":
+            case "binary":
+                index = new QuantizedVectorSearchEngine(Quantization.fromConfig(name), dims,
+                    setting(settings, "calibration", 1000), setting(settings, "oversample", 10));
+                break;
+            case "exact":
+                index = new ExactVectorSearchEngine(SpaceType.fromConfig(settings.get("space")), dims);
+                break;
+            case "opensearch":
+                return openSearch(settings);
+            default:
+                throw new IllegalArgumentException("Unknown config " + config);
+        }
+        docs.forEach(doc -> index.put(doc.id(), doc.vector(), null));
+        return index;
+    }
+
+    // "l2" is short for "space=l2"
+    private static Map<String, String> settings(String value) {
+        Map<String, String> settings = new HashMap<>();
+        for (String pair : value.split(",")) {
+            if (pair.isBlank()) continue;
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                settings.put("space", pair.trim());
+            } else {
+                settings.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            }
+        }
+        return settings;
+    }
+
+    private static int setting(Map<String, String> settings, String key, int defaultValue) {
+        String value = settings.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private interface ClosableEngine extends VectorSearchEngine, AutoCloseable {
+    }
+
+    private static VectorSearchEngine openSearch(Map<String, String> settings) {
+        RestHighLevelClient client = new RestHighLevelClient(
+            RestClient.builder(HttpHost.create(settings.getOrDefault("host", "http://localhost:9200"))));
+        OpenSearchVectorSearchEngine engine = new OpenSearchVectorSearchEngine(client,
+            settings.getOrDefault("index", "vector-books-index"), new ObjectMapper());
+        int numCandidates = setting(settings, "num-candidates", 100);
+        return new ClosableEngine() {
+            @Override
+            public List<VectorHit> search(float[] query, int k) throws IOException {
+                return engine.search(query, k, Math.max(k, numCandidates), k, null,
+                    FetchSourceContext.DO_NOT_FETCH_SOURCE);
+            }
+
+            @Override
+            public void close() throws IOException {
+                client.close();
+            }
+        };
+    }
+
+    // A JSON array, or one JSON value per line (NDJSON, such as the export endpoint writes)
+    static List<JsonNode> readJson(ObjectMapper mapper, String content) throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+        if (content.stripLeading().startsWith("[")) {
+            mapper.readTree(content).forEach(nodes::add);
+            return nodes;
+        }
+        for (String line : content.split("\n")) {
+            if (!line.isBlank()) nodes.add(mapper.readTree(line));
+        }
+        return nodes;
+    }
+
+    // Export lines wrap the document in "source", search hits in "_source"
+    private static JsonNode source(JsonNode node) {
+        if (node.has("source")) return node.get("source");
+        if (node.has("_source")) return node.get("_source");
+        return node;
+    }
+
+    private static int storedDims(List<JsonNode> nodes) {
+        for (JsonNode node : nodes) {
+            JsonNode embedding = source(node).get("embedding");
+            if (embedding != null && embedding.isArray() && embedding.size() > 0) return embedding.size();
+        }
+        return DEFAULT_DIMS;
+    }
+
+    static List<Doc> documents(List<JsonNode> nodes, HashingEmbeddingModel model) {
+        List<Doc> docs = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            JsonNode node = nodes.get(i);
+            JsonNode source = source(node);
+            String id = node.has("id") ? node.get("id").asText()
+                : node.has("_id") ? node.get("_id").asText()
+                : source.has("book_id") ? source.get("book_id").asText()
+                : Integer.toString(i);
+            float[] vector = toVector(source.get("embedding"));
+            if (vector == null && BookDocuments.hasEmbeddingText(source)) {
+                vector = model.embed(BookDocuments.embeddingText(source));
+            }
+            if (vector != null && vector.length == model.dimensions()) docs.add(new Doc(id, vector));
+        }
+        return docs;
+    }
+
+    static List<float[]> queries(ObjectMapper mapper, String content, HashingEmbeddingModel model, int dims)
+            throws IOException {
+        List<float[]> queries = new ArrayList<>();
+        if (content.stripLeading().startsWith("[")) {
+            for (JsonNode node : mapper.readTree(content)) queries.add(query(node, model));
+        } else {
+            for (String line : content.split("\n")) {
+                if (line.isBlank()) continue;
+                String trimmed = line.trim();
+                queries.add(trimmed.startsWith("{") ? query(mapper.readTree(trimmed), model) : model.embed(trimmed));
+            }
+        }
+        for (float[] query : queries) {
+            if (query.length != dims) {
+                throw new IllegalArgumentException("Query vector of length " + query.length + ", expected " + dims);
+            }
+        }
+        return queries;
+    }
+
+    private static float[] query(JsonNode node, HashingEmbeddingModel model) {
+        if (node.isTextual()) return model.embed(node.asText());
+        float[] vector = toVector(node.get("vector"));
+        if (vector != null) return vector;
+        if (node.has("query")) return model.embed(node.get("query").asText());
+        throw new IllegalArgumentException("Query needs a \"query\" text or a \"vector\": " + node);
+    }
+
+    // Like a paraphrase of an existing document: close to it, but not identical
+    static List<float[]> perturbed(List<Doc> docs, int count) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<float[]> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] base = docs.get(random.nextInt(docs.size())).vector();
+            double norm = 0;
+            for (float v : base) norm += v * v;
+            double noise = Math.sqrt(norm / base.length) * 0.5;
+            float[] q = new float[base.length];
+            for (int d = 0; d < base.length; d++) {
+                q[d] = base[d] + (float) (random.nextGaussian() * noise);
+            }
+            queries.add(q);
+        }
+        return queries;
+    }
+
+    private static float[] toVector(JsonNode array) {
+        if (array == null || !array.isArray() || array.size() == 0) return null;
+        float[] v = new float[array.size()];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = array.get(i).floatValue();
+        }
+        return v;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.app.eval;
+
+import com.example.app.search.VectorHit;
+import com.example.app.search.VectorSearchEngine;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures search configurations against exact ground truth. The true top-k
+ * of every query is computed once with the reference engine; each evaluated
+ * engine then answers the same queries, one at a time from a single thread,
+ * after untimed warm-up rounds.
+ *
+ * nDCG uses graded relevance from the true ranking: the nearest neighbour
+ * gains k, the k-th gains 1 and anything outside the true top-k gains 0, so
+ * it drops when the right documents come back in the wrong order.
+ */
+public class SearchEvaluator {
+    private final List<float[]> queries;
+    private final int k;
+    private final List<List<String>> truth;
+
+    public SearchEvaluator(VectorSearchEngine reference, List<float[]> queries, int k) throws IOException {
+        if (queries.isEmpty()) throw new IllegalArgumentException("No queries to evaluate");
+        if (k <= 0) throw new IllegalArgumentException("k must be positive");
+        this.queries = queries;
+        this.k = k;
+        this.truth = new ArrayList<>(queries.size());
+        for (float[] query : queries) {
+            truth.add(ids(reference.search(query, k)));
+        }
+    }
+
+    public EvaluationResult evaluate(String name, VectorSearchEngine engine, int warmupRounds) throws IOException {
+        for (int round = 0; round < warmupRounds; round++) {
+            for (float[] query : queries) {
+                engine.search(query, k);
+            }
+        }
+        long[] latencies = new long[queries.size()];
+        double recall = 0;
+        double ndcg = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries.size(); i++) {
+            long sent = System.nanoTime();
+            List<VectorHit> hits = engine.search(queries.get(i), k);
+            latencies[i] = System.nanoTime() - sent;
+            List<String> found = ids(hits);
+            recall += recall(truth.get(i), found);
+            ndcg += ndcg(truth.get(i), found);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new EvaluationResult(name, queries.size(), k, recall / queries.size(), ndcg / queries.size(),
+            queries.size() / seconds, percentile(latencies, 0.50), percentile(latencies, 0.90),
+            percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+    }
+
+    // Share of the true top-k that came back, in any order
+    static double recall(List<String> expected, List<String> found) {
+        if (expected.isEmpty()) return 1;
+        int hits = 0;
+        for (String id : found.subList(0, Math.min(found.size(), expected.size()))) {
+            if (expected.contains(id)) hits++;
+        }
+        return (double) hits / expected.size();
+    }
+
+    static double ndcg(List<String> expected, List<String> found) {
+        if (expected.isEmpty()) return 1;
+        Map<String, Integer> gains = new HashMap<>();
+        double ideal = 0;
+        for (int rank = 0; rank < expected.size(); rank++) {
+            gains.put(expected.get(rank), expected.size() - rank);
+            ideal += (expected.size() - rank) / log2(rank + 2);
+        }
+        double dcg = 0;
+        for (int rank = 0; rank < Math.min(found.size(), expected.size()); rank++) {
+            dcg += gains.getOrDefault(found.get(rank), 0) / log2(rank + 2);
+        }
+        return dcg / ideal;
+    }
+
+    private static double log2(int x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    private static List<String> ids(List<VectorHit> hits) {
+        List<String> ids = new ArrayList<>(hits.size());
+        for (VectorHit hit : hits) ids.add(hit.id());
+        return ids;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
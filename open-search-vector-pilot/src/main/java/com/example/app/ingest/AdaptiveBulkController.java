@@ -0,0 +1,147 @@
+package com.example.app.ingest;
+
+/**
+ * AIMD tuning of bulk size and of the number of bulks in flight. Bulks that
+ * come back under the target latency without rejections grow the batch by
+ * {@code docsStep}, and a few windows of them allow one more concurrent
+ * request. Rejections (429, the node's write queue is full) halve the
+ * concurrency; a bulk slower than the target halves the batch. Like TCP, only
+ * one decrease of each kind is applied per window: responses to bulks sent
+ * before the last decrease carry no news about the new limits.
+ */
+public class AdaptiveBulkController {
+    // Windows of fast bulks before probing one more concurrent request
+    private static final int INCREASE_WINDOWS = 4;
+
+    private final boolean adaptive;
+    private final int minDocs;
+    private final int maxDocs;
+    private final long maxBytes;
+    private final int maxConcurrency;
+    private final long targetLatencyMillis;
+    private final int docsStep;
+
+    private int batchDocs;
+    private int concurrency;
+    private int inFlight;
+    private long nextTicket;
+    private long batchDecreasedAt = -1;
+    private long concurrencyDecreasedAt = -1;
+    private int fastStreak;
+    private double bytesPerDoc;
+    private long bulks;
+    private long rejections;
+    private long decreases;
+
+    public AdaptiveBulkController(int minDocs, int initialDocs, int maxDocs, long maxBytes,
+                                  int maxConcurrency, long targetLatencyMillis) {
+        this(true, minDocs, initialDocs, maxDocs, maxBytes, 1, maxConcurrency, targetLatencyMillis);
+    }
+
+    private AdaptiveBulkController(boolean adaptive, int minDocs, int initialDocs, int maxDocs, long maxBytes,
+                                   int initialConcurrency, int maxConcurrency, long targetLatencyMillis) {
+        if (minDocs < 1 || initialDocs < minDocs || maxDocs < initialDocs || maxBytes < 1
+                || maxConcurrency < 1 || targetLatencyMillis < 1) {
+            throw new IllegalArgumentException("Invalid adaptive bulk limits");
+        }
+        this.adaptive = adaptive;
+        this.minDocs = minDocs;
+        this.maxDocs = maxDocs;
+        this.maxBytes = maxBytes;
+        this.maxConcurrency = maxConcurrency;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.docsStep = Math.max(1, minDocs / 2);
+        this.batchDocs = initialDocs;
+        this.concurrency = initialConcurrency;
+    }
+
+    // Static limits: every bulk is maxDocs/maxBytes and all workers may send at once
+    public static AdaptiveBulkController fixed(int maxDocs, long maxBytes, int concurrency) {
+        return new AdaptiveBulkController(false, maxDocs, maxDocs, maxDocs, maxBytes, concurrency, concurrency, 1);
+    }
+
+    // Documents per bulk, also bounded by maxBytes at the observed average document size
+    public synchronized int batchDocs() {
+        if (bytesPerDoc <= 0) return batchDocs;
+        return (int) Math.max(minDocs, Math.min(batchDocs, maxBytes / bytesPerDoc));
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int concurrency() {
+        return concurrency;
+    }
+
+    // Blocks until fewer than concurrency() bulks are in flight; the ticket goes back with the outcome
+    public synchronized long acquire() throws InterruptedException {
+        while (inFlight >= concurrency) {
+            wait();
+        }
+        inFlight++;
+        return nextTicket++;
+    }
+
+    public synchronized void onResponse(long ticket, int docs, long bytes, long tookMillis, int rejected) {
+        inFlight--;
+        bulks++;
+        rejections += rejected;
+        if (docs > 0) {
+            double docBytes = (double) bytes / docs;
+            bytesPerDoc = bytesPerDoc == 0 ? docBytes : 0.8 * bytesPerDoc + 0.2 * docBytes;
+        }
+        if (adaptive) {
+            if (rejected > 0) {
+                decreaseConcurrency(ticket);
+            }
+            if (tookMillis > targetLatencyMillis) {
+                decreaseBatch(ticket);
+            }
+            if (rejected == 0 && tookMillis <= targetLatencyMillis) {
+                increase();
+            }
+        }
+        notifyAll();
+    }
+
+    // The bulk call itself failed (timeout, connection reset, 429 on the whole request)
+    public synchronized void onFailure(long ticket) {
+        inFlight--;
+        bulks++;
+        if (adaptive) {
+            decreaseConcurrency(ticket);
+            decreaseBatch(ticket);
+        }
+        notifyAll();
+    }
+
+    private void decreaseConcurrency(long ticket) {
+        fastStreak = 0;
+        if (ticket < concurrencyDecreasedAt) return;
+        concurrency = Math.max(1, concurrency / 2);
+        concurrencyDecreasedAt = nextTicket;
+        decreases++;
+    }
+
+    private void decreaseBatch(long ticket) {
+        fastStreak = 0;
+        if (ticket < batchDecreasedAt) return;
+        batchDocs = Math.max(minDocs, batchDocs / 2);
+        batchDecreasedAt = nextTicket;
+        decreases++;
+    }
+
+    private void increase() {
+        batchDocs = Math.min(maxDocs, batchDocs + docsStep);
+        if (++fastStreak >= INCREASE_WINDOWS * concurrency && concurrency < maxConcurrency) {
+            concurrency++;
+            fastStreak = 0;
+        }
+    }
+
+    public synchronized String summary() {
+        return String.format("bulk size %d docs, concurrency %d, %d bulks, %d rejected items, %d decreases",
+            batchDocs(), concurrency, bulks, rejections, decreases);
+    }
+}
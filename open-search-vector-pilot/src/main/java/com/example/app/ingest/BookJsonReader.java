@@ -0,0 +1,107 @@
+package com.example.app.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a top-level JSON array of books one element at a time, so only the
+ * current document is held in memory regardless of the file size.
+ */
+public class BookJsonReader implements Iterator<ObjectNode>, Closeable {
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private final long totalBytes;
+    private final boolean array;
+    private ObjectNode next;
+    private boolean done;
+    // Read from progress reporting on other threads
+    private volatile long bytesRead;
+
+    public BookJsonReader(ObjectMapper mapper, Path path) throws IOException {
+        this.mapper = mapper;
+        this.totalBytes = Files.size(path);
+        this.parser = mapper.getFactory().createParser(path.toFile());
+        this.array = parser.nextToken() == JsonToken.START_ARRAY;
+        this.done = !array;
+    }
+
+    public boolean isArray() {
+        return array;
+    }
+
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        if (done) return false;
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    next = mapper.readTree(parser);
+                    bytesRead = parser.currentLocation().getByteOffset();
+                    return true;
+                }
+                // Skip anything that is not a book object (nested arrays, scalars)
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        done = true;
+        return false;
+    }
+
+    // Skips up to count books without building their trees; returns how many were skipped
+    public long skip(long count) {
+        long skipped = 0;
+        if (next != null && count > 0) {
+            next = null;
+            skipped++;
+        }
+        try {
+            while (skipped < count && !done) {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    done = true;
+                } else {
+                    if (token == JsonToken.START_OBJECT) skipped++;
+                    parser.skipChildren();
+                }
+            }
+            bytesRead = parser.currentLocation().getByteOffset();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return skipped;
+    }
+
+    @Override
+    public ObjectNode next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ObjectNode node = next;
+        next = null;
+        return node;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
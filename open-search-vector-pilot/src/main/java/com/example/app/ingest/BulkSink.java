@@ -0,0 +1,10 @@
+package com.example.app.ingest;
+
+import java.io.IOException;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+
+@FunctionalInterface
+public interface BulkSink {
+    BulkResponse bulk(BulkRequest request) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.example.app.ingest;
+
+import com.example.app.service.BookDocuments;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * NDJSON file of documents that could not be indexed: rejected with a
+ * non-retryable status or still rejected after the last retry. Each line holds
+ * the id, source offset, status, error and the document without its vector.
+ * Lines are appended across runs.
+ */
+public class DeadLetterFile implements Closeable {
+    private final ObjectMapper mapper;
+    private final Path path;
+    private BufferedWriter writer;
+    private int count;
+
+    public DeadLetterFile(ObjectMapper mapper, Path path) {
+        this.mapper = mapper;
+        this.path = path;
+    }
+
+    public synchronized void write(String id, long offset, int status, String error, JsonNode doc) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        ObjectNode line = mapper.createObjectNode();
+        line.put("id", id);
+        line.put("offset", offset);
+        line.put("status", status);
+        line.put("error", error);
+        if (doc instanceof ObjectNode) {
+            ObjectNode source = ((ObjectNode) doc).deepCopy();
+            source.remove(List.of("embedding", BookDocuments.CHUNKS_FIELD));
+            line.set("source", source);
+        }
+        writer.write(mapper.writeValueAsString(line));
+        writer.newLine();
+        writer.flush();
+        count++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) writer.close();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.app.ingest;
+
+import com.example.app.embedding.EmbeddingUnavailableException;
+import com.example.app.opensearch.RebuildInProgressException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ids of documents that were written without a vector for their current
+ * text because the embedding provider failed, re-embedded in the background.
+ *
+ * The queue lives in memory and is bounded. Ids lost to a restart or an
+ * overflow are found again by the sweeper, which runs on the first round,
+ * after {@link #sweepLater()} and after an overflow once the queue has
+ * drained. Rounds where the provider is unavailable do not count as attempts.
+ */
+public class EmbeddingRetryQueue implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingRetryQueue.class);
+
+    // Embeds and writes the given documents; returns the ids that still have no vector
+    public interface Retrier {
+        List<String> retry(List<String> ids) throws Exception;
+    }
+
+    // Ids of up to max documents that have text but no vector for it
+    public interface Sweeper {
+        List<String> find(int max) throws Exception;
+    }
+
+    public record Stats(int pending, long embedded, long gaveUp, long overflowed, long sweeps) {
+    }
+
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Retrier retrier;
+    private final Sweeper sweeper;
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private boolean sweepNeeded = true;
+    private long embedded;
+    private long gaveUp;
+    private long overflowed;
+    private long sweeps;
+    private ScheduledExecutorService scheduler;
+
+    public EmbeddingRetryQueue(int capacity, int batchSize, int maxAttempts, Retrier retrier, Sweeper sweeper) {
+        if (capacity < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry queue capacity, batch size and attempts must be positive");
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retrier = retrier;
+        this.sweeper = sweeper;
+    }
+
+    public synchronized void defer(String id) {
+        attempts.remove(id);
+        enqueue(id);
+    }
+
+    private synchronized void enqueue(String id) {
+        if (pending.size() >= capacity && !pending.contains(id)) {
+            overflowed++;
+            sweepNeeded = true;
+            return;
+        }
+        pending.add(id);
+    }
+
+    // Documents were written without vectors outside the queue (e.g. into a rebuilt index)
+    public synchronized void sweepLater() {
+        sweepNeeded = true;
+    }
+
+    public void start(long intervalMillis) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "embedding-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                // Keep going while rounds make progress, so a backlog does not wait one interval per batch
+                while (runOnce() > 0) {
+                    if (Thread.currentThread().isInterrupted()) return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Embedding retry round failed: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One round: retries a batch of queued ids, sweeping for unqueued
+     * documents first when the queue is empty and a sweep is due.
+     *
+     * @return how many documents got their vector
+     */
+    public int runOnce() {
+        List<String> batch = take();
+        if (batch.isEmpty() && sweep()) {
+            batch = take();
+        }
+        if (batch.isEmpty()) return 0;
+        List<String> failed;
+        try {
+            failed = retrier.retry(batch);
+        } catch (EmbeddingUnavailableException e) {
+            log.debug("Embedding provider unavailable, {} documents stay queued: {}", batch.size(), e.getMessage());
+            requeue(batch, false);
+            return 0;
+        } catch (RebuildInProgressException e) {
+            log.debug("Index rebuild running, {} documents stay queued", batch.size());
+            requeue(batch, false);
+            return 0;
+        } catch (Exception e) {
+            log.warn("Re-embedding {} documents failed: {}", batch.size(), e.getMessage());
+            failed = batch;
+        }
+        synchronized (this) {
+            for (String id : batch) {
+                if (!failed.contains(id)) attempts.remove(id);
+            }
+            embedded += batch.size() - failed.size();
+        }
+        requeue(failed, true);
+        return batch.size() - failed.size();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(pending.size(), embedded, gaveUp, overflowed, sweeps);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private synchronized List<String> take() {
+        List<String> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<String> ids = pending.iterator();
+        while (ids.hasNext() && batch.size() < batchSize) {
+            batch.add(ids.next());
+            ids.remove();
+        }
+        return batch;
+    }
+
+    private boolean sweep() {
+        synchronized (this) {
+            if (!sweepNeeded) return false;
+            sweepNeeded = false;
+            sweeps++;
+        }
+        List<String> found;
+        try {
+            found = sweeper.find(capacity);
+        } catch (Exception e) {
+            log.warn("Sweep for documents without embeddings failed: {}", e.getMessage());
+            sweepLater();
+            return false;
+        }
+        synchronized (this) {
+            for (String id : found) {
+                // Ids given up on are not picked up again until they are deferred anew
+                if (attempts.getOrDefault(id, 0) < maxAttempts) enqueue(id);
+            }
+            if (found.size() >= capacity) sweepNeeded = true;
+        }
+        return !found.isEmpty();
+    }
+
+    private synchronized void requeue(List<String> ids, boolean countAttempt) {
+        for (String id : ids) {
+            int attempt = attempts.getOrDefault(id, 0) + (countAttempt ? 1 : 0);
+            if (attempt >= maxAttempts) {
+                gaveUp++;
+                attempts.put(id, attempt);
+                log.warn("Giving up on embedding document {} after {} attempts", id, attempt);
+                continue;
+            }
+            if (attempt > 0) attempts.put(id, attempt);
+            enqueue(id);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.app.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.TreeSet;
+
+/**
+ * Committed position of a resumable import: every document before
+ * {@link #offset()} has been indexed or dead-lettered. Index workers finish
+ * bulks out of order, so the offset only advances over a contiguous prefix of
+ * completed documents. The file is replaced atomically on every save.
+ */
+public class ImportCheckpoint {
+    private final ObjectMapper mapper;
+    private final Path file;
+    private final String source;
+    private final TreeSet<Long> completedAhead = new TreeSet<>();
+    private long offset;
+    private long savedOffset;
+
+    private ImportCheckpoint(ObjectMapper mapper, Path file, String source, long offset) {
+        this.mapper = mapper;
+        this.file = file;
+        this.source = source;
+        this.offset = offset;
+        this.savedOffset = offset;
+    }
+
+    // A checkpoint written for a different source file is ignored
+    public static ImportCheckpoint open(ObjectMapper mapper, Path file, String source) throws IOException {
+        long offset = 0;
+        if (Files.exists(file)) {
+            JsonNode saved = mapper.readTree(file.toFile());
+            if (source.equals(saved.path("source").asText())) {
+                offset = saved.path("offset").asLong(0);
+            }
+        }
+        return new ImportCheckpoint(mapper, file, source, offset);
+    }
+
+    public synchronized long offset() {
+        return offset;
+    }
+
+    public synchronized void complete(long ordinal) {
+        if (ordinal < offset) return;
+        completedAhead.add(ordinal);
+        while (!completedAhead.isEmpty() && completedAhead.first() == offset) {
+            completedAhead.pollFirst();
+            offset++;
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        if (offset == savedOffset) return;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        mapper.writeValue(tmp.toFile(), mapper.createObjectNode().put("source", source).put("offset", offset));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        savedOffset = offset;
+    }
+
+    // Called once the whole source is done, so the next run starts from the beginning
+    public synchronized void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.app.ingest;
+
+/**
+ * Sizing of the ingest pipeline stages and of each bulk request.
+ */
+public record IngestOptions(
+    int embeddingBatchSize,
+    int embedWorkers,
+    int indexWorkers,
+    int queueCapacity,
+    int bulkMaxDocs,
+    long bulkMaxBytes
+) {
+    public IngestOptions {
+        if (embeddingBatchSize < 1 || embedWorkers < 1 || indexWorkers < 1 || queueCapacity < 1
+                || bulkMaxDocs < 1 || bulkMaxBytes < 1) {
+            throw new IllegalArgumentException("Ingest options must all be positive");
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.example.app.ingest;
+
+import com.example.app.service.BookDocuments;
+import com.example.app.service.VectorJson;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.common.xcontent.XContentType;
+
+/**
+ * Parse -> embed -> bulk index, with the stages connected by bounded queues.
+ * When OpenSearch or the embedding provider slows down the queues fill up and
+ * the upstream stages block, so memory stays bounded by the queue capacity.
+ */
+public class IngestPipeline {
+    private static final long POLL_MILLIS = 100;
+    private static final Batch END = new Batch(List.of(), 0);
+    private static final List<Item> END_ITEMS = new ArrayList<>();
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ObjectMapper mapper;
+    private final String index;
+    private final Function<List<String>, List<float[]>> embedder;
+    private final BulkSink sink;
+    private final IngestOptions options;
+
+    private final BlockingQueue<Batch> embedQueue;
+    private final BlockingQueue<List<Item>> indexQueue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicInteger indexedSoFar = new AtomicInteger();
+    private DocListener listener;
+    private RetryPolicy retryPolicy = RetryPolicy.NONE;
+    private ImportCheckpoint checkpoint;
+    private DeadLetterFile deadLetters;
+    private AdaptiveBulkController bulkController;
+    private Function<JsonNode, List<String>> chunker;
+    private Consumer<String> unembedded = id -> { };
+
+    public IngestPipeline(ObjectMapper mapper, String index, Function<List<String>, List<float[]>> embedder,
+                          BulkSink sink, IngestOptions options) {
+        this.mapper = mapper;
+        this.index = index;
+        this.embedder = embedder;
+        this.sink = sink;
+        this.options = options;
+        this.embedQueue = new ArrayBlockingQueue<>(options.queueCapacity());
+        this.indexQueue = new ArrayBlockingQueue<>(options.queueCapacity());
+        this.bulkController = AdaptiveBulkController.fixed(options.bulkMaxDocs(), options.bulkMaxBytes(),
+            options.indexWorkers());
+    }
+
+    public IngestReport run(Iterator<ObjectNode> source, Runnable onBulk) throws IOException {
+        return run(source, 0, onBulk);
+    }
+
+    /**
+     * Runs the pipeline to completion on the given source, whose first document
+     * is at {@code firstOffset} of the original file. Ids come from
+     * {@code book_id}, or from the 1-based offset when a book has none, so a
+     * re-run overwrites documents instead of duplicating them.
+     */
+    public IngestReport run(Iterator<ObjectNode> source, long firstOffset, Runnable onBulk) throws IOException {
+        IngestReport report = new IngestReport();
+        ExecutorService embedPool = Executors.newFixedThreadPool(options.embedWorkers(), namedThreads("ingest-embed"));
+        ExecutorService indexPool = Executors.newFixedThreadPool(options.indexWorkers(), namedThreads("ingest-index"));
+        AtomicInteger liveEmbedders = new AtomicInteger(options.embedWorkers());
+        report.start();
+        try {
+            for (int i = 0; i < options.embedWorkers(); i++) {
+                embedPool.execute(() -> embedLoop(report, liveEmbedders));
+            }
+            for (int i = 0; i < options.indexWorkers(); i++) {
+                indexPool.execute(() -> indexLoop(report, onBulk));
+            }
+            parseLoop(source, firstOffset, report);
+            embedPool.shutdown();
+            indexPool.shutdown();
+            awaitQuietly(embedPool);
+            awaitQuietly(indexPool);
+        } finally {
+            embedPool.shutdownNow();
+            indexPool.shutdownNow();
+            report.finish();
+        }
+        Throwable t = failure.get();
+        if (t instanceof IOException) throw (IOException) t;
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t != null) throw new IOException(t);
+        return report;
+    }
+
+    // Called from indexing workers for every document OpenSearch acknowledged in a bulk response
+    public IngestPipeline onIndexed(DocListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    // Per-item retries for 429 rejections and whole-bulk retries for failed calls
+    public IngestPipeline withRetries(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    // Advanced and saved after every bulk, so a restart can skip what is already committed
+    public IngestPipeline withCheckpoint(ImportCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    public IngestPipeline withDeadLetters(DeadLetterFile deadLetters) {
+        this.deadLetters = deadLetters;
+        return this;
+    }
+
+    // Replaces the fixed bulkMaxDocs/indexWorkers limits; the index workers become the upper bound
+    public IngestPipeline withBulkController(AdaptiveBulkController bulkController) {
+        this.bulkController = bulkController;
+        return this;
+    }
+
+    // Told the id of every document indexed without a complete embedding (written without the vector)
+    public IngestPipeline onEmbeddingFailed(Consumer<String> unembedded) {
+        this.unembedded = unembedded;
+        return this;
+    }
+
+    // Chunk texts per document; they are embedded in the same batch call as the document texts
+    public IngestPipeline withChunks(Function<JsonNode, List<String>> chunker) {
+        this.chunker = chunker;
+        return this;
+    }
+
+    public String bulkSizing() {
+        return bulkController.summary();
+    }
+
+    public int indexedSoFar() {
+        return indexedSoFar.get();
+    }
+
+    private void parseLoop(Iterator<ObjectNode> source, long firstOffset, IngestReport report) {
+        long nextOffset = firstOffset;
+        long busy = 0;
+        int docs = 0;
+        try {
+            while (failure.get() == null) {
+                long start = System.nanoTime();
+                List<ObjectNode> docsInBatch = new ArrayList<>(options.embeddingBatchSize());
+                while (docsInBatch.size() < options.embeddingBatchSize() && source.hasNext()) {
+                    docsInBatch.add(source.next());
+                }
+                busy += System.nanoTime() - start;
+                if (docsInBatch.isEmpty()) break;
+                docs += docsInBatch.size();
+                if (!put(embedQueue, new Batch(docsInBatch, nextOffset))) break;
+                nextOffset += docsInBatch.size();
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            report.recordStage("parse", 1, docs, busy);
+            for (int i = 0; i < options.embedWorkers(); i++) {
+                put(embedQueue, END);
+            }
+        }
+    }
+
+    private void embedLoop(IngestReport report, AtomicInteger liveEmbedders) {
+        try {
+            Batch batch;
+            while ((batch = take(embedQueue)) != null && batch != END) {
+                long start = System.nanoTime();
+                List<String> texts = new ArrayList<>(batch.docs.size());
+                for (ObjectNode node : batch.docs) {
+                    texts.add(BookDocuments.embeddingText(node));
+                }
+                int[] chunkStarts = new int[batch.docs.size() + 1];
+                if (chunker != null) {
+                    chunkStarts[0] = texts.size();
+                    for (int i = 0; i < batch.docs.size(); i++) {
+                        texts.addAll(chunker.apply(batch.docs.get(i)));
+                        chunkStarts[i + 1] = texts.size();
+                    }
+                }
+                List<float[]> embeddings = embedder.apply(texts);
+                List<Item> items = new ArrayList<>(batch.docs.size());
+                for (int i = 0; i < batch.docs.size(); i++) {
+                    long offset = batch.firstOffset + i;
+                    String id = docId(batch.docs.get(i), offset);
+                    List<float[]> chunks = chunker != null ? embeddings.subList(chunkStarts[i], chunkStarts[i + 1]) : null;
+                    batch.docs.get(i).put(BookDocuments.DOC_ID_FIELD, id);
+                    batch.docs.get(i).remove(BookDocuments.TEXT_HASH_FIELD);
+                    if (embeddings.get(i).length > 0 && (chunks == null || allEmbedded(chunks))) {
+                        batch.docs.get(i).put(BookDocuments.TEXT_HASH_FIELD, BookDocuments.textHash(texts.get(i)));
+                    } else {
+                        unembedded.accept(id);
+                    }
+                    IndexRequest request = new IndexRequest(index)
+                        .id(id)
+                        .source(VectorJson.withEmbedding(mapper, batch.docs.get(i), embeddings.get(i),
+                            chunks != null ? embedded(chunks) : null), XContentType.JSON);
+                    // The doc and its vector are only held until the bulk response when someone listens
+                    items.add(listener != null
+                        ? new Item(request, offset, batch.docs.get(i), embeddings.get(i))
+                        : new Item(request, offset, null, null));
+                }
+                report.recordStage("embed", options.embedWorkers(), batch.docs.size(), System.nanoTime() - start);
+                if (!put(indexQueue, items)) break;
+            }
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            // The last embed worker out tells the indexers there is nothing more to come
+            if (liveEmbedders.decrementAndGet() == 0) {
+                for (int i = 0; i < options.indexWorkers(); i++) {
+                    put(indexQueue, END_ITEMS);
+                }
+            }
+        }
+    }
+
+    private void indexLoop(IngestReport report, Runnable onBulk) {
+        BulkRequest bulkRequest = new BulkRequest();
+        List<Item> pending = new ArrayList<>();
+        try {
+            List<Item> items;
+            while ((items = take(indexQueue)) != null && items != END_ITEMS) {
+                for (Item item : items) {
+                    bulkRequest.add(item.request);
+                    pending.add(item);
+                    if (bulkRequest.numberOfActions() >= bulkController.batchDocs()
+                            || bulkRequest.estimatedSizeInBytes() >= bulkController.maxBytes()) {
+                        flush(bulkRequest, pending, report, onBulk);
+                        bulkRequest = new BulkRequest();
+                        pending = new ArrayList<>();
+                    }
+                }
+            }
+            if (bulkRequest.numberOfActions() > 0 && failure.get() == null) {
+                flush(bulkRequest, pending, report, onBulk);
+            }
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    // Sends the bulk and resends the items rejected with 429 until they succeed or run out of
+    // retries; anything else that fails goes to the dead-letter file
+    private void flush(BulkRequest bulkRequest, List<Item> sent, IngestReport report, Runnable onBulk)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int docs = bulkRequest.numberOfActions();
+        for (int attempt = 0; ; attempt++) {
+            BulkResponse response;
+            long ticket = bulkController.acquire();
+            try {
+                response = sink.bulk(bulkRequest);
+            } catch (IOException e) {
+                bulkController.onFailure(ticket);
+                if (attempt >= retryPolicy.maxRetries()) throw e;
+                Thread.sleep(retryPolicy.backoffMillis(attempt));
+                continue;
+            } catch (RuntimeException e) {
+                bulkController.onFailure(ticket);
+                throw e;
+            }
+            BulkItemResponse[] items = response.getItems();
+            bulkController.onResponse(ticket, items.length, bulkRequest.estimatedSizeInBytes(),
+                response.getTook().millis(), rejectedCount(items));
+            BulkRequest retry = new BulkRequest();
+            List<Item> retryItems = new ArrayList<>();
+            int indexed = 0;
+            for (int i = 0; i < items.length; i++) {
+                Item item = sent.get(i);
+                if (!items[i].isFailed()) {
+                    indexed++;
+                    complete(item.offset);
+                    if (listener != null) {
+                        listener.accept(item.request.id(), item.doc, item.embedding);
+                    }
+                } else if (isRejection(items[i]) && attempt < retryPolicy.maxRetries()) {
+                    retry.add(item.request);
+                    retryItems.add(item);
+                } else {
+                    deadLetter(item.request, item.offset, items[i]);
+                    report.recordFailure(items[i].getFailureMessage());
+                    complete(item.offset);
+                }
+            }
+            report.recordIndexed(indexed);
+            if (retry.numberOfActions() == 0) break;
+            report.recordRetries(retry.numberOfActions());
+            Thread.sleep(retryPolicy.backoffMillis(attempt));
+            bulkRequest = retry;
+            sent = retryItems;
+        }
+        report.recordStage("index", options.indexWorkers(), docs, System.nanoTime() - start);
+        indexedSoFar.addAndGet(docs);
+        if (checkpoint != null) {
+            checkpoint.save();
+        }
+        onBulk.run();
+    }
+
+    private static boolean allEmbedded(List<float[]> vectors) {
+        for (float[] vector : vectors) {
+            if (vector.length == 0) return false;
+        }
+        return true;
+    }
+
+    // Chunks whose embedding failed are left out rather than indexed as empty vectors
+    private static List<float[]> embedded(List<float[]> vectors) {
+        List<float[]> result = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            if (vector.length > 0) result.add(vector);
+        }
+        return result;
+    }
+
+    // 429 is rejected_execution_exception: a node's write thread pool queue was full
+    private static boolean isRejection(BulkItemResponse item) {
+        return item.isFailed() && item.status().getStatus() == TOO_MANY_REQUESTS;
+    }
+
+    private static int rejectedCount(BulkItemResponse[] items) {
+        int rejected = 0;
+        for (BulkItemResponse item : items) {
+            if (isRejection(item)) rejected++;
+        }
+        return rejected;
+    }
+
+    private void complete(long offset) {
+        if (checkpoint != null) {
+            checkpoint.complete(offset);
+        }
+    }
+
+    private void deadLetter(IndexRequest request, long offset, BulkItemResponse item) throws IOException {
+        if (deadLetters == null) return;
+        JsonNode doc = mapper.readTree(request.source().utf8ToString());
+        deadLetters.write(request.id(), offset, item.status().getStatus(), item.getFailureMessage(), doc);
+    }
+
+    // book_id when present, so re-running an import overwrites instead of duplicating
+    private static String docId(ObjectNode doc, long offset) {
+        JsonNode bookId = doc.get("book_id");
+        if (bookId != null && !bookId.isNull() && !bookId.asText().isEmpty()) {
+            return bookId.asText();
+        }
+        return String.valueOf(offset + 1);
+    }
+
+    // Blocking put that gives up once another stage has failed
+    private <T> boolean put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            return false;
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            T item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure.get() != null) return null;
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            return null;
+        }
+    }
+
+    private void awaitQuietly(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting; workers exit on their own once the queues drain
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @FunctionalInterface
+    public interface DocListener {
+        void accept(String id, ObjectNode doc, float[] embedding) throws IOException;
+    }
+
+    private static final class Batch {
+        final List<ObjectNode> docs;
+        final long firstOffset;
+
+        Batch(List<ObjectNode> docs, long firstOffset) {
+            this.docs = docs;
+            this.firstOffset = firstOffset;
+        }
+    }
+
+    private record Item(IndexRequest request, long offset, ObjectNode doc, float[] embedding) {
+    }
+}
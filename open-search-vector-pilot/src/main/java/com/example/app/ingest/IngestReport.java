@@ -0,0 +1,88 @@
+package com.example.app.ingest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Running totals for a bulk ingest run, plus per-stage throughput.
+ */
+public class IngestReport {
+    private int indexed;
+    private int failed;
+    private int retried;
+    private String firstFailure;
+    private long startNanos = System.nanoTime();
+    private long endNanos;
+    private final Map<String, StageStats> stages = new LinkedHashMap<>();
+
+    public synchronized void recordIndexed(int docs) {
+        indexed += docs;
+    }
+
+    public synchronized void recordFailure(String message) {
+        failed++;
+        if (firstFailure == null) {
+            firstFailure = message;
+        }
+    }
+
+    public synchronized void recordRetries(int docs) {
+        retried += docs;
+    }
+
+    public synchronized void recordStage(String stage, int workers, int docs, long busyNanos) {
+        StageStats stats = stages.computeIfAbsent(stage, s -> new StageStats(workers));
+        stats.docs += docs;
+        stats.busyNanos += busyNanos;
+    }
+
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+    }
+
+    public synchronized void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public synchronized int indexed() {
+        return indexed;
+    }
+
+    public synchronized int failed() {
+        return failed;
+    }
+
+    public synchronized int retried() {
+        return retried;
+    }
+
+    public synchronized String firstFailure() {
+        return firstFailure;
+    }
+
+    public synchronized String throughputSummary() {
+        double wallSeconds = ((endNanos > 0 ? endNanos : System.nanoTime()) - startNanos) / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d docs in %.1fs (%.1f docs/s), %d item retries", indexed + failed, wallSeconds,
+            wallSeconds > 0 ? (indexed + failed) / wallSeconds : 0.0, retried));
+        for (Map.Entry<String, StageStats> e : stages.entrySet()) {
+            StageStats s = e.getValue();
+            // Capacity = docs per second of busy time, scaled by the number of workers
+            double busySeconds = s.busyNanos / 1e9;
+            double capacity = busySeconds > 0 ? s.docs * s.workers / busySeconds : 0.0;
+            sb.append(String.format("; %s: %d docs, %d worker(s), %.1f docs/s capacity",
+                e.getKey(), s.docs, s.workers, capacity));
+        }
+        return sb.toString();
+    }
+
+    private static class StageStats {
+        final int workers;
+        int docs;
+        long busyNanos;
+
+        StageStats(int workers) {
+            this.workers = workers;
+        }
+    }
+}
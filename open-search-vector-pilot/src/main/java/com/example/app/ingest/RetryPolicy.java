@@ -0,0 +1,23 @@
+package com.example.app.ingest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff for bulk items the cluster rejected (429) and for bulk
+ * calls that failed outright. Each wait is drawn between half and all of
+ * {@code initialBackoffMillis * 2^attempt}, capped at {@code maxBackoffMillis}.
+ */
+public record RetryPolicy(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+
+    public RetryPolicy {
+        if (maxRetries < 0 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Invalid retry policy");
+        }
+    }
+
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 30));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.app.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator: each simulated client sends a request,
+ * waits for the response and immediately sends the next one. Clients are
+ * chained futures rather than threads, so thousands of them fit in one JVM.
+ *
+ * Usage: LoadTest <url with {q}> [clients] [durationSeconds] [warmupSeconds] [queryFile]
+ * e.g. LoadTest "http://localhost:8080/api/books/vector-search?query={q}" 1000 60 10 queries.txt
+ *
+ * Queries come from the file, one per line, or are generated so that no two
+ * requests in a run repeat; a fixed handful would mostly measure the result
+ * and query embedding caches. Run it once with books.search.async=true and
+ * once with false to compare.
+ */
+public class LoadTest {
+    private static final String[] SUBJECTS = {
+        "dragons", "wizards", "detectives", "pirates", "robots", "vampires", "spies", "knights",
+        "orphans", "astronauts", "witches", "soldiers", "explorers", "thieves", "twins", "ghosts"
+    };
+    private static final String[] PLACES = {
+        "in london", "in paris", "at sea", "in space", "in the desert", "on mars", "in a small town",
+        "in the jungle", "in tokyo", "under the ice", "in a castle", "in new york", "in the forest",
+        "in rome", "on an island", "in the mountains"
+    };
+    private static final String[] THEMES = {
+        "coming of age", "time travel", "revenge", "first love", "a lost inheritance", "war",
+        "a murder mystery", "an epic quest", "betrayal", "survival", "a haunted house", "friendship",
+        "a heist", "exile", "a prophecy", "redemption"
+    };
+
+    private final HttpClient http;
+    private final String urlTemplate;
+    private final List<String> queries;
+    private final long warmupEndNanos;
+    private final long endNanos;
+    private final Recorder recorder = new Recorder();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadTest(String urlTemplate, List<String> queries, long warmupEndNanos, long endNanos) {
+        this.urlTemplate = urlTemplate;
+        this.queries = queries;
+        this.warmupEndNanos = warmupEndNanos;
+        this.endNanos = endNanos;
+        this.http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadTest <url with {q}> [clients] [durationSeconds] [warmupSeconds] [queryFile]");
+            return;
+        }
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        List<String> queries = args.length > 4 ? readQueries(args[4]) : null;
+
+        long start = System.nanoTime();
+        long warmupEnd = start + Duration.ofSeconds(warmupSeconds).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(durationSeconds).toNanos();
+        LoadTest test = new LoadTest(args[0], queries, warmupEnd, end);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            test.next(done);
+        }
+        done.await();
+
+        long[] latencies = test.recorder.snapshot();
+        Arrays.sort(latencies);
+        System.out.printf("clients=%d duration=%ds requests=%d errors=%d queries=%s%n",
+            clients, durationSeconds, latencies.length, test.errors.get(),
+            queries != null ? queries.size() + " from " + args[4] : "generated");
+        System.out.printf("throughput=%.1f req/s%n", latencies.length / (double) durationSeconds);
+        System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+            percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+            latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    private void next(CountDownLatch done) {
+        if (System.nanoTime() >= endNanos) {
+            done.countDown();
+            return;
+        }
+        String query = query(sequence.getAndIncrement());
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(urlTemplate.replace("{q}", URLEncoder.encode(query, StandardCharsets.UTF_8))))
+            .timeout(Duration.ofSeconds(60))
+            .GET()
+            .build();
+        long sent = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long finished = System.nanoTime();
+            // Requests sent inside the measured window count even when they finish after it;
+            // dropping the late ones would leave out exactly the slowest responses
+            if (sent >= warmupEndNanos && sent < endNanos) {
+                if (error != null || response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                } else {
+                    recorder.record(finished - sent);
+                }
+            }
+            next(done);
+        });
+    }
+
+    // Cycles through the file, or walks every subject/place/theme combination and then numbers
+    // further rounds so a generated query never repeats within a run
+    String query(long n) {
+        if (queries != null) return queries.get((int) (n % queries.size()));
+        int combinations = SUBJECTS.length * PLACES.length * THEMES.length;
+        int i = (int) (n % combinations);
+        String query = SUBJECTS[i % SUBJECTS.length] + " " + PLACES[(i / SUBJECTS.length) % PLACES.length]
+            + " " + THEMES[i / (SUBJECTS.length * PLACES.length)];
+        long round = n / combinations;
+        return round == 0 ? query : query + " " + round;
+    }
+
+    private static List<String> readQueries(String file) throws IOException {
+        List<String> queries = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8).stream()
+            .map(String::trim)
+            .filter(line -> !line.isEmpty())
+            .toList();
+        if (queries.isEmpty()) throw new IllegalArgumentException("No queries in " + file);
+        return queries;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Recorder {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
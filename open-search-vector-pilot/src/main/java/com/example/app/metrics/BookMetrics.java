@@ -0,0 +1,91 @@
+package com.example.app.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer instrumentation shared by the services. Calls go through
+ * {@link Observation}s, so each one is a timer tagged with its operation and
+ * outcome and, when tracing is enabled, a span under the HTTP request span.
+ */
+@Component
+public class BookMetrics {
+    public static final String OPENSEARCH = "books.opensearch.request";
+    public static final String EMBEDDING = "books.embedding";
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observations;
+
+    public BookMetrics(MeterRegistry registry, ObservationRegistry observations) {
+        this.registry = registry;
+        this.observations = observations;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public <T, E extends Exception> T observe(String name, String operation, CheckedSupplier<T, E> call) throws E {
+        Observation observation = Observation.createNotStarted(name, observations)
+            .lowCardinalityKeyValue("operation", operation)
+            .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return call.get();
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    // Stops when the future completes, on whichever thread completes it
+    public <T> CompletableFuture<T> observeAsync(String name, String operation, Supplier<CompletableFuture<T>> call) {
+        Observation observation = Observation.createNotStarted(name, observations)
+            .lowCardinalityKeyValue("operation", operation)
+            .start();
+        CompletableFuture<T> future;
+        try (Observation.Scope scope = observation.openScope()) {
+            future = call.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            if (error != null) observation.error(error);
+            observation.stop();
+        });
+    }
+
+    public void searchResults(String endpoint, int count) {
+        DistributionSummary.builder("books.search.results")
+            .tag("endpoint", endpoint)
+            .baseUnit("hits")
+            .register(registry)
+            .record(count);
+    }
+
+    public void ingested(int indexed, int failed, int retried) {
+        registry.counter("books.ingest.documents", "result", "indexed").increment(indexed);
+        registry.counter("books.ingest.documents", "result", "failed").increment(failed);
+        registry.counter("books.ingest.documents", "result", "retried").increment(retried);
+    }
+
+    // The cache must be built with recordStats()
+    public void monitor(Cache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    @FunctionalInterface
+    public interface CheckedSupplier<T, E extends Exception> {
+        T get() throws E;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.app.opensearch;
+
+import com.example.app.service.BookDocuments;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import org.apache.http.client.config.RequestConfig;
+import org.opensearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.opensearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.opensearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.opensearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.opensearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.opensearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.opensearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.opensearch.action.admin.indices.refresh.RefreshRequest;
+import org.opensearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.opensearch.client.Request;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.ResponseException;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.indices.CreateIndexRequest;
+import org.opensearch.client.indices.GetIndexRequest;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+import org.opensearch.index.reindex.ReindexRequest;
+import org.opensearch.script.Script;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versioned indices behind one alias. Reads and writes always use the alias;
+ * a rebuild loads a new {@code <alias>-v<timestamp>} index with refresh and
+ * replicas off, refreshes, force-merges, restores the settings, warms the kNN
+ * graphs and then moves the alias in one atomic call, so searches never see a
+ * half-built index. The previous versions are kept for rollback up to
+ * {@code retainVersions} and deleted after that. Writes to the alias go
+ * through {@link #write} and are refused while a rebuild runs, because the
+ * new version is loaded from a file or a copy taken when the rebuild started.
+ */
+public class IndexLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(IndexLifecycle.class);
+    private static final DateTimeFormatter VERSION = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS")
+        .withZone(ZoneOffset.UTC);
+    // Force merge and reindex run far longer than the client's socket timeout
+    private static final RequestOptions LONG_RUNNING = RequestOptions.DEFAULT.toBuilder()
+        .setRequestConfig(RequestConfig.custom().setSocketTimeout(60 * 60 * 1000).build())
+        .build();
+    private static final TimeValue HEALTH_TIMEOUT = TimeValue.timeValueMinutes(2);
+
+    private final RestHighLevelClient client;
+    private final String alias;
+    private final IndexSettings settings;
+    private final Supplier<String> mapping;
+    private final AtomicBoolean building = new AtomicBoolean();
+    // Writes hold the read lock; a rebuild starts under the write lock, after in-flight writes finish
+    private final ReadWriteLock writes = new ReentrantReadWriteLock();
+    private volatile boolean exists;
+
+    @FunctionalInterface
+    public interface Loader {
+        void load(String index) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Write<T> {
+        T run() throws IOException;
+    }
+
+    public IndexLifecycle(RestHighLevelClient client, String alias, IndexSettings settings, Supplier<String> mapping) {
+        this.client = client;
+        this.alias = alias;
+        this.settings = settings;
+        this.mapping = mapping;
+    }
+
+    public String alias() {
+        return alias;
+    }
+
+    // Only the first call per process goes to the cluster; it creates the first version when nothing answers
+    // to the alias. A concrete index named like the alias (created before versioning) is used as it is
+    public void ensureExists() throws IOException {
+        if (exists) return;
+        synchronized (this) {
+            if (exists) return;
+            if (!client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+                String index = versionName();
+                create(index, false);
+                client.indices().updateAliases(new IndicesAliasesRequest()
+                    .addAliasAction(AliasActions.add().index(index).alias(alias)), RequestOptions.DEFAULT);
+                log.info("Created index {} behind alias {}", index, alias);
+            }
+            exists = true;
+        }
+    }
+
+    /**
+     * Builds a new version with the loader, then swaps it in. If the loader
+     * or any step before the swap fails, the new index is deleted and the
+     * alias keeps pointing at the current version.
+     *
+     * @return the name of the new live index
+     * @throws RebuildInProgressException if another rebuild has not finished
+     */
+    public String rebuild(Loader loader) throws IOException {
+        writes.writeLock().lock();
+        try {
+            if (!building.compareAndSet(false, true)) {
+                throw new RebuildInProgressException("An index rebuild of " + alias + " is already running.");
+            }
+        } finally {
+            writes.writeLock().unlock();
+        }
+        String index = versionName();
+        try {
+            create(index, true);
+            try {
+                loader.load(index);
+                finishLoad(index);
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(index);
+                throw e;
+            }
+            swap(index);
+            pruneVersions(index);
+            return index;
+        } finally {
+            building.set(false);
+        }
+    }
+
+    // Copies the live documents, vectors included, into a new version; picks up mapping and settings
+    // changes without re-embedding anything, and fills doc_id on documents written before it existed
+    public String reindex() throws IOException {
+        ensureExists();
+        return rebuild(index -> {
+            ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(alias)
+                .setDestIndex(index)
+                .setSourceBatchSize(500)
+                .setScript(new Script("ctx._source." + BookDocuments.DOC_ID_FIELD + " = ctx._id"))
+                .setTimeout(TimeValue.timeValueHours(1));
+            BulkByScrollResponse response = client.reindex(request, LONG_RUNNING);
+            if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+                throw new IOException("Reindex into " + index + " had " + response.getBulkFailures().size()
+                    + " write and " + response.getSearchFailures().size() + " read failures");
+            }
+            log.info("Reindexed {} documents from {} into {}", response.getCreated(), alias, index);
+        });
+    }
+
+    public boolean rebuilding() {
+        return building.get();
+    }
+
+    /**
+     * Runs a write against the alias, unless a rebuild is running.
+     *
+     * @throws RebuildInProgressException if a rebuild is running
+     */
+    public <T> T write(Write<T> write) throws IOException {
+        writes.readLock().lock();
+        try {
+            checkWritable();
+            return write.run();
+        } finally {
+            writes.readLock().unlock();
+        }
+    }
+
+    // For callers that would do expensive work (embedding) before writing
+    public void checkWritable() {
+        if (building.get()) {
+            throw new RebuildInProgressException("Index " + alias
+                + " is being rebuilt; writes are refused until the new version is swapped in.");
+        }
+    }
+
+    private void create(String index, boolean bulkLoad) throws IOException {
+        Settings.Builder indexSettings = Settings.builder()
+            .put("index.knn", true)
+            .put("index.number_of_shards", settings.shards())
+            // Replicas would index every document a second time; they copy the merged segments afterwards
+            .put("index.number_of_replicas", bulkLoad ? 0 : settings.replicas())
+            .put("index.refresh_interval", bulkLoad ? "-1" : settings.refreshInterval());
+        client.indices().create(new CreateIndexRequest(index)
+            .settings(indexSettings)
+            .mapping(mapping.get(), XContentType.JSON), RequestOptions.DEFAULT);
+    }
+
+    private void finishLoad(String index) throws IOException {
+        client.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+        if (settings.forceMergeSegments() > 0) {
+            // Fewer segments means fewer HNSW graphs to search per query
+            client.indices().forcemerge(new ForceMergeRequest(index)
+                .maxNumSegments(settings.forceMergeSegments()), LONG_RUNNING);
+        }
+        client.indices().putSettings(new UpdateSettingsRequest(index).settings(Settings.builder()
+            .put("index.number_of_replicas", settings.replicas())
+            .put("index.refresh_interval", settings.refreshInterval())), RequestOptions.DEFAULT);
+        ClusterHealthResponse health = client.cluster().health(new ClusterHealthRequest(index)
+            .waitForGreenStatus()
+            .timeout(HEALTH_TIMEOUT), RequestOptions.DEFAULT);
+        if (health.isTimedOut()) {
+            // A single-node cluster never allocates the replicas; the primaries serve alone
+            log.warn("Index {} is {} after {}; swapping anyway", index, health.getStatus(), HEALTH_TIMEOUT);
+        }
+        warmUp(index);
+    }
+
+    // Loads the native (faiss/nmslib) graphs into memory so the first searches do not page them in
+    private void warmUp(String index) {
+        try {
+            client.getLowLevelClient().performRequest(new Request("GET", "/_plugins/_knn/warmup/" + index));
+        } catch (ResponseException e) {
+            log.debug("kNN warmup of {} skipped: {}", index, e.getMessage());
+        } catch (IOException e) {
+            log.warn("kNN warmup of {} failed: {}", index, e.getMessage());
+        }
+    }
+
+    private void swap(String index) throws IOException {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        List<String> previous = new ArrayList<>(client.indices()
+            .getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT).getAliases().keySet());
+        for (String old : previous) {
+            request.addAliasAction(AliasActions.remove().index(old).alias(alias));
+        }
+        if (previous.isEmpty() && client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+            // An unversioned index holds the alias name; it has to go in the same call for the alias to be added
+            request.addAliasAction(AliasActions.removeIndex().index(alias));
+        }
+        request.addAliasAction(AliasActions.add().index(index).alias(alias));
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        exists = true;
+        log.info("Alias {} moved from {} to {}", alias, previous, index);
+    }
+
+    private void pruneVersions(String live) throws IOException {
+        String[] versions = client.indices().get(new GetIndexRequest(alias + "-v*"), RequestOptions.DEFAULT).getIndices();
+        List<String> older = Arrays.stream(versions)
+            .filter(version -> !version.equals(live))
+            .sorted(Comparator.reverseOrder())
+            .toList();
+        for (String version : older.subList(Math.min(settings.retainVersions(), older.size()), older.size())) {
+            deleteQuietly(version);
+        }
+    }
+
+    private void deleteQuietly(String index) {
+        try {
+            client.indices().delete(new DeleteIndexRequest(index), RequestOptions.DEFAULT);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete index {}: {}", index, e.getMessage());
+        }
+    }
+
+    private String versionName() {
+        return alias + "-v" + VERSION.format(Instant.now());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.app.opensearch;
+
+/**
+ * Shard, refresh and HNSW settings of the versioned indices behind the books
+ * alias, read from the {@code books.index.*} properties. Bulk loads run with
+ * refresh and replicas off and switch to these values before the swap.
+ */
+public record IndexSettings(
+    int shards,
+    int replicas,
+    String refreshInterval,
+    int hnswM,
+    int hnswEfConstruction,
+    int forceMergeSegments,
+    int retainVersions) {
+
+    public IndexSettings {
+        if (shards < 1) throw new IllegalArgumentException("books.index.shards must be positive");
+        if (replicas < 0) throw new IllegalArgumentException("books.index.replicas must not be negative");
+        if (hnswM < 2 || hnswEfConstruction < hnswM) {
+            throw new IllegalArgumentException("books.index.knn.ef-construction must be at least books.index.knn.m");
+        }
+        if (retainVersions < 0) throw new IllegalArgumentException("books.index.retain-versions must not be negative");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.app.opensearch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.opensearch.client.Node;
+import org.opensearch.client.NodeSelector;
+
+/**
+ * Sends each request to the node with the fewest requests in flight. The
+ * async client holds a pooled connection for the whole exchange, so leased
+ * plus pending connections per route is the node's current load. Ties keep
+ * the client's round-robin order.
+ */
+public class LeastLoadedNodeSelector implements NodeSelector {
+    private final PoolingNHttpClientConnectionManager connections;
+
+    public LeastLoadedNodeSelector(PoolingNHttpClientConnectionManager connections) {
+        this.connections = connections;
+    }
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        // Snapshot once so concurrent requests cannot make every node look busier than the minimum
+        List<Integer> loads = new ArrayList<>();
+        int least = Integer.MAX_VALUE;
+        for (Node node : nodes) {
+            int load = inFlight(node.getHost());
+            loads.add(load);
+            least = Math.min(least, load);
+        }
+        int i = 0;
+        for (Iterator<Node> it = nodes.iterator(); it.hasNext(); i++) {
+            it.next();
+            if (loads.get(i) > least) it.remove();
+        }
+    }
+
+    private int inFlight(HttpHost host) {
+        HttpRoute route = new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+        PoolStats stats = connections.getStats(route);
+        return stats.getLeased() + stats.getPending();
+    }
+
+    @Override
+    public String toString() {
+        return "LEAST_LOADED";
+    }
+}
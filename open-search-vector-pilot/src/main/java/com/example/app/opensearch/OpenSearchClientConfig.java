@@ -0,0 +1,22 @@
+package com.example.app.opensearch;
+
+import java.io.IOException;
+import org.opensearch.client.RestHighLevelClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class OpenSearchClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public OpenSearchConnection openSearchConnection(Environment environment) throws IOException {
+        return OpenSearchConnection.create(OpenSearchClientSettings.from(environment::getProperty));
+    }
+
+    // Closed with the connection, not on its own
+    @Bean(destroyMethod = "")
+    public RestHighLevelClient restHighLevelClient(OpenSearchConnection connection) {
+        return connection.client();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.app.opensearch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import org.apache.http.HttpHost;
+
+/**
+ * Connection settings for the shared OpenSearch client, read from the
+ * {@code books.opensearch.*} properties so the Spring app and the CLI
+ * resolve them the same way.
+ */
+public record OpenSearchClientSettings(
+    List<HttpHost> hosts,
+    NodeSelection nodeSelection,
+    int maxConnections,
+    int maxConnectionsPerRoute,
+    Duration keepAlive,
+    boolean compression,
+    Duration connectTimeout,
+    Duration socketTimeout,
+    Duration connectionRequestTimeout,
+    int ioThreads,
+    boolean sniff,
+    Duration sniffInterval,
+    Duration sniffAfterFailureDelay) {
+
+    public enum NodeSelection {
+        ROUND_ROBIN,
+        LEAST_LOADED;
+
+        static NodeSelection fromConfig(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public OpenSearchClientSettings {
+        if (hosts.isEmpty()) throw new IllegalArgumentException("books.opensearch.hosts must list at least one host");
+        if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("Connection limits must be positive");
+        }
+        hosts = List.copyOf(hosts);
+    }
+
+    // properties maps a key to its value, or null when unset
+    public static OpenSearchClientSettings from(Function<String, String> properties) {
+        List<HttpHost> hosts = new ArrayList<>();
+        for (String host : get(properties, "hosts", "http://localhost:9200").split(",")) {
+            if (!host.isBlank()) hosts.add(HttpHost.create(host.trim()));
+        }
+        return new OpenSearchClientSettings(
+            hosts,
+            NodeSelection.fromConfig(get(properties, "node-selection", "round-robin")),
+            Integer.parseInt(get(properties, "max-connections", "200")),
+            Integer.parseInt(get(properties, "max-connections-per-route", "100")),
+            Duration.ofSeconds(Long.parseLong(get(properties, "keep-alive-seconds", "60"))),
+            Boolean.parseBoolean(get(properties, "compression", "true")),
+            Duration.ofMillis(Long.parseLong(get(properties, "connect-timeout-ms", "1000"))),
+            Duration.ofMillis(Long.parseLong(get(properties, "socket-timeout-ms", "30000"))),
+            Duration.ofMillis(Long.parseLong(get(properties, "connection-request-timeout-ms", "1000"))),
+            Integer.parseInt(get(properties, "io-threads", "0")),
+            Boolean.parseBoolean(get(properties, "sniff.enabled", "false")),
+            Duration.ofSeconds(Long.parseLong(get(properties, "sniff.interval-seconds", "300"))),
+            Duration.ofSeconds(Long.parseLong(get(properties, "sniff.after-failure-delay-seconds", "60"))));
+    }
+
+    private static String get(Function<String, String> properties, String key, String defaultValue) {
+        String value = properties.apply("books.opensearch." + key);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
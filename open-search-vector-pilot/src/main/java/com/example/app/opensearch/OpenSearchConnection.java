@@ -0,0 +1,97 @@
+package com.example.app.opensearch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import org.apache.http.HttpHost;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.sniff.OpenSearchNodesSniffer;
+import org.opensearch.client.sniff.SniffOnFailureListener;
+import org.opensearch.client.sniff.Sniffer;
+
+/**
+ * The one pooled client per process, plus its optional sniffer. Closing it
+ * stops sniffing and releases the connection pool.
+ */
+public class OpenSearchConnection implements Closeable {
+    private final RestHighLevelClient client;
+    private final Sniffer sniffer;
+
+    private OpenSearchConnection(RestHighLevelClient client, Sniffer sniffer) {
+        this.client = client;
+        this.sniffer = sniffer;
+    }
+
+    public static OpenSearchConnection create(OpenSearchClientSettings settings) throws IOException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+            .setIoThreadCount(settings.ioThreads() > 0 ? settings.ioThreads() : Runtime.getRuntime().availableProcessors())
+            .setConnectTimeout((int) settings.connectTimeout().toMillis())
+            .setSoKeepAlive(true)
+            .build();
+        // Built here rather than by the client so the least-loaded selector can read per-node pool stats
+        PoolingNHttpClientConnectionManager connections =
+            new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connections.setMaxTotal(settings.maxConnections());
+        connections.setDefaultMaxPerRoute(settings.maxConnectionsPerRoute());
+        long keepAliveMillis = settings.keepAlive().toMillis();
+
+        RestClientBuilder builder = RestClient.builder(settings.hosts().toArray(new HttpHost[0]))
+            .setCompressionEnabled(settings.compression())
+            .setRequestConfigCallback(requestConfig -> requestConfig
+                .setConnectTimeout((int) settings.connectTimeout().toMillis())
+                .setSocketTimeout((int) settings.socketTimeout().toMillis())
+                .setConnectionRequestTimeout((int) settings.connectionRequestTimeout().toMillis()))
+            .setHttpClientConfigCallback(httpClient -> httpClient
+                .setConnectionManager(connections)
+                // Idle pooled connections are reused for this long instead of reconnecting per request
+                .setKeepAliveStrategy((response, context) -> keepAliveMillis));
+        if (settings.nodeSelection() == OpenSearchClientSettings.NodeSelection.LEAST_LOADED) {
+            builder.setNodeSelector(new LeastLoadedNodeSelector(connections));
+        }
+        SniffOnFailureListener sniffOnFailure = settings.sniff() ? new SniffOnFailureListener() : null;
+        if (sniffOnFailure != null) {
+            builder.setFailureListener(sniffOnFailure);
+        }
+
+        RestHighLevelClient client = new RestHighLevelClient(builder);
+        Sniffer sniffer = null;
+        if (settings.sniff()) {
+            OpenSearchNodesSniffer.Scheme scheme = "https".equalsIgnoreCase(settings.hosts().get(0).getSchemeName())
+                ? OpenSearchNodesSniffer.Scheme.HTTPS
+                : OpenSearchNodesSniffer.Scheme.HTTP;
+            sniffer = Sniffer.builder(client.getLowLevelClient())
+                .setNodesSniffer(new OpenSearchNodesSniffer(client.getLowLevelClient(),
+                    OpenSearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, scheme))
+                .setSniffIntervalMillis((int) settings.sniffInterval().toMillis())
+                .setSniffAfterFailureDelayMillis((int) settings.sniffAfterFailureDelay().toMillis())
+                .build();
+            sniffOnFailure.setSniffer(sniffer);
+        }
+        return new OpenSearchConnection(client, sniffer);
+    }
+
+    // For entry points outside Spring: same settings, read from application.properties on the classpath
+    public static OpenSearchConnection fromClasspath() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = OpenSearchConnection.class.getResourceAsStream("/application.properties")) {
+            if (in != null) properties.load(in);
+        }
+        return create(OpenSearchClientSettings.from(key -> System.getProperty(key, properties.getProperty(key))));
+    }
+
+    public RestHighLevelClient client() {
+        return client;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sniffer != null) sniffer.close();
+        client.close();
+    }
+}
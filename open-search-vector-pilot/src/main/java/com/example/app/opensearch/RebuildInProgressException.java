@@ -0,0 +1,12 @@
+package com.example.app.opensearch;
+
+/**
+ * A new index version is being built behind the alias. Until it has been
+ * swapped in or dropped, another rebuild cannot start and writes to the
+ * alias are refused, since the new version would not contain them.
+ */
+public class RebuildInProgressException extends RuntimeException {
+    public RebuildInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.app.search;
+
+import java.util.List;
+
+/**
+ * One bit per dimension: set when the component is above that dimension's
+ * calibrated mean. Candidates are ranked by Hamming distance and should be
+ * rescored at full precision.
+ */
+public final class BinaryQuantizer {
+    private final float[] thresholds;
+    private final int words;
+
+    private BinaryQuantizer(float[] thresholds) {
+        this.thresholds = thresholds;
+        this.words = (thresholds.length + 63) / 64;
+    }
+
+    public static BinaryQuantizer calibrate(List<float[]> sample) {
+        int dims = sample.get(0).length;
+        float[] mean = new float[dims];
+        for (float[] v : sample) {
+            for (int i = 0; i < dims; i++) mean[i] += v[i];
+        }
+        for (int i = 0; i < dims; i++) mean[i] /= sample.size();
+        return new BinaryQuantizer(mean);
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public void encode(float[] v, long[] out, int wordOffset) {
+        for (int w = 0; w < words; w++) out[wordOffset + w] = 0L;
+        for (int i = 0; i < thresholds.length; i++) {
+            if (v[i] > thresholds[i]) {
+                out[wordOffset + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    public long[] encode(float[] v) {
+        long[] out = new long[words];
+        encode(v, out, 0);
+        return out;
+    }
+
+    public static int hamming(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int distance = 0;
+        for (int w = 0; w < words; w++) {
+            distance += Long.bitCount(a[aOffset + w] ^ b[bOffset + w]);
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.app.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Brute-force search over the raw (not normalized) vectors in any
+ * {@link SpaceType}. Too slow to serve queries from a large catalog; it is
+ * the ground truth the approximate engines are measured against.
+ */
+public class ExactVectorSearchEngine implements InMemoryVectorIndex {
+    private final SpaceType space;
+    private final int dims;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private record Entry(float[] vector, String source) {
+    }
+
+    public ExactVectorSearchEngine(SpaceType space, int dims) {
+        this.space = space;
+        this.dims = dims;
+    }
+
+    @Override
+    public void put(String id, float[] vector, String source) {
+        if (vector == null || vector.length != dims) {
+            // No usable vector: the entry must not keep serving an older one
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            entries.put(id, new Entry(vector.clone(), source));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            entries.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeIf(Predicate<String> source) {
+        lock.writeLock().lock();
+        try {
+            int before = entries.size();
+            entries.values().removeIf(entry -> source.test(entry.source()));
+            return before - entries.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        if (query.length != dims) {
+            throw new IllegalArgumentException("Query vector must be of length " + dims);
+        }
+        lock.readLock().lock();
+        try {
+            List<String> ids = new ArrayList<>(entries.size());
+            List<String> sources = new ArrayList<>(entries.size());
+            TopK top = new TopK(Math.min(k, entries.size()));
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                top.offer(ids.size(), space.score(query, entry.getValue().vector()));
+                ids.add(entry.getKey());
+                sources.add(entry.getValue().source());
+            }
+            float[] scores = new float[top.size()];
+            int[] positions = top.drainDescending(scores);
+            List<VectorHit> hits = new ArrayList<>(positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                hits.add(new VectorHit(ids.get(positions[i]), scores[i], sources.get(positions[i])));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
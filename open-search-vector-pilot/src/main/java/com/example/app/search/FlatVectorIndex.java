@@ -0,0 +1,107 @@
+package com.example.app.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Append-only store of unit-length vectors in contiguous float[] segments,
+ * with exact (brute-force) cosine search. A single array would overflow its
+ * int index at about 1.4M vectors of 1536 dimensions, so vectors are spread
+ * over segments of at most 64 MB each. Deleted slots are tombstoned; callers
+ * compact by rebuilding.
+ */
+public class FlatVectorIndex {
+    private static final int SEGMENT_FLOATS = 1 << 24;
+
+    private final int dims;
+    private final int segmentSlots;
+    private float[][] segments;
+    private int slots;
+    private final BitSet deleted = new BitSet();
+
+    public FlatVectorIndex(int dims, int initialCapacity) {
+        this(dims, initialCapacity, SEGMENT_FLOATS);
+    }
+
+    FlatVectorIndex(int dims, int initialCapacity, int segmentFloats) {
+        this.dims = dims;
+        this.segmentSlots = Math.max(1, segmentFloats / dims);
+        this.segments = new float[][] {new float[Math.min(Math.max(1, initialCapacity), segmentSlots) * dims]};
+    }
+
+    public int dims() {
+        return dims;
+    }
+
+    // Vector must already be normalized; returns its slot
+    public int add(float[] unitVector) {
+        if (unitVector.length != dims) {
+            throw new IllegalArgumentException("Expected " + dims + " dimensions but got " + unitVector.length);
+        }
+        if (slots == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Vector index is full at " + slots + " vectors");
+        }
+        int segment = slots / segmentSlots;
+        int offset = offset(slots);
+        if (segment == segments.length) {
+            segments = Arrays.copyOf(segments, segment + 1);
+            segments[segment] = new float[segmentSlots * dims];
+        } else if (offset + dims > segments[segment].length) {
+            // Only the first segment starts small; it doubles up to the segment size
+            int capacity = Math.min(segmentSlots, 2 * (segments[segment].length / dims));
+            segments[segment] = Arrays.copyOf(segments[segment], capacity * dims);
+        }
+        System.arraycopy(unitVector, 0, segments[segment], offset, dims);
+        return slots++;
+    }
+
+    public void delete(int slot) {
+        deleted.set(slot);
+    }
+
+    public boolean isDeleted(int slot) {
+        return deleted.get(slot);
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public int deletedCount() {
+        return deleted.cardinality();
+    }
+
+    public float similarity(float[] unitQuery, int slot) {
+        return VectorMath.dot(unitQuery, 0, segments[slot / segmentSlots], offset(slot), dims);
+    }
+
+    public float similarity(int slotA, int slotB) {
+        return VectorMath.dot(segments[slotA / segmentSlots], offset(slotA),
+            segments[slotB / segmentSlots], offset(slotB), dims);
+    }
+
+    public float[] vector(int slot) {
+        int offset = offset(slot);
+        return Arrays.copyOfRange(segments[slot / segmentSlots], offset, offset + dims);
+    }
+
+    // Exact top-k over all live slots, best first
+    public int[] search(float[] unitQuery, int k, float[] outScores) {
+        TopK top = new TopK(k);
+        int slot = 0;
+        for (float[] segment : segments) {
+            for (int offset = 0; slot < slots && offset < segment.length; offset += dims, slot++) {
+                if (deleted.get(slot)) continue;
+                float score = VectorMath.dot(unitQuery, 0, segment, offset, dims);
+                if (!top.isFull() || score > top.minScore()) {
+                    top.offer(slot, score);
+                }
+            }
+        }
+        return top.drainDescending(outScores);
+    }
+
+    private int offset(int slot) {
+        return (slot % segmentSlots) * dims;
+    }
+}
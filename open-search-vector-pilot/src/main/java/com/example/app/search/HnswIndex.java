@@ -0,0 +1,203 @@
+package com.example.app.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical Navigable Small World graph over the slots of a
+ * {@link FlatVectorIndex} (Malkov and Yashunin, 2016). Vectors are not copied;
+ * the graph stores only neighbor lists. Not thread-safe: callers serialize
+ * inserts against searches.
+ */
+public class HnswIndex {
+    private final FlatVectorIndex vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    // links.get(slot)[level] = neighbor slots; sizes.get(slot)[level] = used length
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<int[]> sizes = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(FlatVectorIndex vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int size() {
+        return links.size();
+    }
+
+    // Slots must be inserted in order, once each
+    public void insert(int slot) {
+        if (slot != links.size()) {
+            throw new IllegalArgumentException("Expected slot " + links.size() + " but got " + slot);
+        }
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+        links.add(nodeLinks);
+        sizes.add(new int[level + 1]);
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            maxLevel = level;
+            return;
+        }
+        float[] query = vectors.vector(slot);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(query, current, efConstruction, l, false);
+            int maxLinks = l == 0 ? maxM0 : m;
+            List<Candidate> neighbors = selectNeighbors(candidates, m);
+            for (Candidate neighbor : neighbors) {
+                connect(slot, neighbor.slot, l, maxLinks);
+                connect(neighbor.slot, slot, l, maxLinks);
+            }
+            current = candidates.get(0).slot;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = slot;
+        }
+    }
+
+    /**
+     * Approximate top-k, best first. Deleted slots are traversed but neither
+     * returned nor counted towards {@code ef}, so tombstones awaiting compaction
+     * do not cut the result short of {@code k} live hits.
+     */
+    public int[] search(float[] unitQuery, int k, int ef, float[] outScores) {
+        if (entryPoint < 0) return new int[0];
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(unitQuery, current, l);
+        }
+        List<Candidate> candidates = searchLayer(unitQuery, current, Math.max(ef, k), 0, true);
+        TopK top = new TopK(k);
+        for (Candidate c : candidates) {
+            top.offer(c.slot, c.score);
+        }
+        return top.drainDescending(outScores);
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = vectors.similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links.get(current)[level];
+            int count = sizes.get(current)[level];
+            for (int i = 0; i < count; i++) {
+                float score = vectors.similarity(query, neighbors[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Returns up to ef nearest candidates on one layer, best first; with liveOnly, deleted slots
+    // are only used as stepping stones
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level, boolean liveOnly) {
+        BitSet visited = new BitSet(links.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>((a, b) -> Float.compare(b.score, a.score));
+        PriorityQueue<Candidate> found = new PriorityQueue<>((a, b) -> Float.compare(a.score, b.score));
+        Candidate start = new Candidate(entry, vectors.similarity(query, entry));
+        visited.set(entry);
+        toVisit.add(start);
+        if (!liveOnly || !vectors.isDeleted(entry)) found.add(start);
+        while (!toVisit.isEmpty()) {
+            Candidate c = toVisit.poll();
+            if (found.size() >= ef && c.score < found.peek().score) break;
+            int[][] nodeLinks = links.get(c.slot);
+            if (level >= nodeLinks.length) continue;
+            int[] neighbors = nodeLinks[level];
+            int count = sizes.get(c.slot)[level];
+            for (int i = 0; i < count; i++) {
+                int n = neighbors[i];
+                if (visited.get(n)) continue;
+                visited.set(n);
+                float score = vectors.similarity(query, n);
+                if (found.size() < ef || score > found.peek().score) {
+                    Candidate nc = new Candidate(n, score);
+                    toVisit.add(nc);
+                    if (liveOnly && vectors.isDeleted(n)) continue;
+                    found.add(nc);
+                    if (found.size() > ef) found.poll();
+                }
+            }
+        }
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort((a, b) -> Float.compare(b.score, a.score));
+        return result;
+    }
+
+    // Diversity heuristic: keep a candidate only if it is closer to the query than to any kept neighbor
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        for (Candidate c : candidates) {
+            if (selected.size() >= max) break;
+            boolean diverse = true;
+            for (Candidate s : selected) {
+                if (vectors.similarity(c.slot, s.slot) > c.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) selected.add(c);
+        }
+        // Fill up with the closest remaining candidates so sparse regions stay connected
+        for (Candidate c : candidates) {
+            if (selected.size() >= max) break;
+            if (!selected.contains(c)) selected.add(c);
+        }
+        return selected;
+    }
+
+    private void connect(int from, int to, int level, int maxLinks) {
+        int[] neighbors = links.get(from)[level];
+        int[] fromSizes = sizes.get(from);
+        int count = fromSizes[level];
+        for (int i = 0; i < count; i++) {
+            if (neighbors[i] == to) return;
+        }
+        neighbors[count++] = to;
+        if (count > maxLinks) {
+            // Drop the neighbor least similar to this node
+            int worst = 0;
+            float worstScore = Float.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                float score = vectors.similarity(from, neighbors[i]);
+                if (score < worstScore) {
+                    worstScore = score;
+                    worst = i;
+                }
+            }
+            neighbors[worst] = neighbors[count - 1];
+            count--;
+        }
+        fromSizes[level] = count;
+    }
+
+    private record Candidate(int slot, float score) {
+    }
+}
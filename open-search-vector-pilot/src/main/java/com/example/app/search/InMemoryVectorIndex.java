@@ -0,0 +1,18 @@
+package com.example.app.search;
+
+import java.util.function.Predicate;
+
+/**
+ * A {@link VectorSearchEngine} held in process memory and kept up to date by the writers.
+ */
+public interface InMemoryVectorIndex extends VectorSearchEngine {
+    // A missing or wrong-length vector removes the entry instead
+    void put(String id, float[] vector, String source);
+
+    void remove(String id);
+
+    // Removes every entry whose stored source matches; returns how many were removed
+    int removeIf(Predicate<String> source);
+
+    int size();
+}
@@ -0,0 +1,181 @@
+package com.example.app.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-process vector index for catalogs that fit in RAM. Vectors are stored
+ * normalized in a segmented {@link FlatVectorIndex}; once the index grows past
+ * {@code hnswThreshold} live documents, searches go through an HNSW graph over
+ * the same storage instead of a full scan. Updates tombstone the old slot and
+ * the storage is compacted once half of it is dead.
+ */
+public class LocalVectorSearchEngine implements InMemoryVectorIndex {
+    private final int dims;
+    private final int hnswM;
+    private final int hnswEfConstruction;
+    private final int hnswEfSearch;
+    private final int hnswThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FlatVectorIndex flat;
+    private HnswIndex hnsw;
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private List<String> idsBySlot = new ArrayList<>();
+    private List<String> sourcesBySlot = new ArrayList<>();
+
+    public LocalVectorSearchEngine(int dims, int hnswM, int hnswEfConstruction, int hnswEfSearch, int hnswThreshold) {
+        this.dims = dims;
+        this.hnswM = hnswM;
+        this.hnswEfConstruction = hnswEfConstruction;
+        this.hnswEfSearch = hnswEfSearch;
+        this.hnswThreshold = hnswThreshold;
+        this.flat = new FlatVectorIndex(dims, 1024);
+    }
+
+    @Override
+    public void put(String id, float[] vector, String source) {
+        if (vector == null || vector.length != dims) {
+            // No usable vector: the entry must not keep serving an older one
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer old = slotsById.remove(id);
+            if (old != null) {
+                flat.delete(old);
+                sourcesBySlot.set(old, null);
+            }
+            int slot = flat.add(VectorMath.normalize(vector));
+            idsBySlot.add(id);
+            sourcesBySlot.add(source);
+            slotsById.put(id, slot);
+            if (hnsw != null) {
+                hnsw.insert(slot);
+            } else if (slotsById.size() >= hnswThreshold) {
+                buildGraph();
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                flat.delete(slot);
+                sourcesBySlot.set(slot, null);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeIf(Predicate<String> source) {
+        lock.writeLock().lock();
+        try {
+            List<String> matching = new ArrayList<>();
+            slotsById.forEach((id, slot) -> {
+                if (source.test(sourcesBySlot.get(slot))) matching.add(id);
+            });
+            for (String id : matching) {
+                int slot = slotsById.remove(id);
+                flat.delete(slot);
+                sourcesBySlot.set(slot, null);
+            }
+            compactIfNeeded();
+            return matching.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        if (query.length != dims) {
+            throw new IllegalArgumentException("Query vector must be of length " + dims);
+        }
+        float[] unitQuery = VectorMath.normalize(query);
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[k];
+            int[] slots = hnsw != null
+                ? hnsw.search(unitQuery, k, hnswEfSearch, scores)
+                : flat.search(unitQuery, k, scores);
+            return toHits(slots, scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Exact search regardless of size; the reference for recall checks
+    public List<VectorHit> exactSearch(float[] query, int k) {
+        float[] unitQuery = VectorMath.normalize(query);
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[k];
+            int[] slots = flat.search(unitQuery, k, scores);
+            return toHits(slots, scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<VectorHit> toHits(int[] slots, float[] scores) {
+        List<VectorHit> hits = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            hits.add(new VectorHit(idsBySlot.get(slots[i]), scores[i], sourcesBySlot.get(slots[i])));
+        }
+        return hits;
+    }
+
+    private void buildGraph() {
+        hnsw = new HnswIndex(flat, hnswM, hnswEfConstruction);
+        for (int slot = 0; slot < flat.slots(); slot++) {
+            hnsw.insert(slot);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (flat.deletedCount() < 1024 || flat.deletedCount() * 2 < flat.slots()) return;
+        FlatVectorIndex compacted = new FlatVectorIndex(dims, slotsById.size());
+        List<String> ids = new ArrayList<>(slotsById.size());
+        List<String> sources = new ArrayList<>(slotsById.size());
+        for (int slot = 0; slot < flat.slots(); slot++) {
+            if (flat.isDeleted(slot)) continue;
+            int newSlot = compacted.add(flat.vector(slot));
+            ids.add(idsBySlot.get(slot));
+            sources.add(sourcesBySlot.get(slot));
+            slotsById.put(idsBySlot.get(slot), newSlot);
+        }
+        flat = compacted;
+        idsBySlot = ids;
+        sourcesBySlot = sources;
+        hnsw = null;
+        if (slotsById.size() >= hnswThreshold) {
+            buildGraph();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.app.search;
+
+import com.example.app.service.VectorJson;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.query.WrapperQueryBuilder;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * kNN query against the OpenSearch k-NN plugin, on the document vector or,
+ * with a chunk score mode, on the nested chunk vectors.
+ */
+public class OpenSearchVectorSearchEngine implements VectorSearchEngine {
+    private final RestHighLevelClient client;
+    private final String index;
+    private final ObjectMapper mapper;
+    private final String chunkScoreMode; // null searches the document vector
+
+    public OpenSearchVectorSearchEngine(RestHighLevelClient client, String index, ObjectMapper mapper) {
+        this(client, index, mapper, null);
+    }
+
+    // chunkScoreMode is a nested score_mode: max (best chunk) or avg
+    public OpenSearchVectorSearchEngine(RestHighLevelClient client, String index, ObjectMapper mapper,
+                                        String chunkScoreMode) {
+        this.client = client;
+        this.index = index;
+        this.mapper = mapper;
+        this.chunkScoreMode = chunkScoreMode;
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) throws IOException {
+        return search(query, k, FetchSourceContext.FETCH_SOURCE);
+    }
+
+    public List<VectorHit> search(float[] query, int k, FetchSourceContext source) throws IOException {
+        return search(query, k, 0, k, null, source);
+    }
+
+    // filter is a query clause evaluated inside the kNN search (efficient filtering), not on its results
+    public List<VectorHit> search(float[] query, int k, int numCandidates, int size, JsonNode filter,
+                                  FetchSourceContext source) throws IOException {
+        return toHits(client.search(request(query, k, numCandidates, size, filter, source), RequestOptions.DEFAULT));
+    }
+
+    // Completes on the client's I/O reactor thread; no caller thread waits on the round trip
+    public CompletableFuture<List<VectorHit>> searchAsync(float[] query, int k, int numCandidates, int size,
+                                                          JsonNode filter, FetchSourceContext source) {
+        CompletableFuture<List<VectorHit>> future = new CompletableFuture<>();
+        SearchRequest searchRequest;
+        try {
+            searchRequest = request(query, k, numCandidates, size, filter, source);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        client.searchAsync(searchRequest, RequestOptions.DEFAULT,
+            ActionListener.wrap(response -> future.complete(toHits(response)), future::completeExceptionally));
+        return future;
+    }
+
+    private SearchRequest request(float[] query, int k, int numCandidates, int size, JsonNode filter,
+                                  FetchSourceContext source) throws IOException {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.size(size);
+        searchSourceBuilder.fetchSource(source);
+        byte[] knn = chunkScoreMode == null
+            ? VectorJson.knnQuery(mapper, query, k, numCandidates, filter)
+            : VectorJson.nestedKnnQuery(mapper, query, k, numCandidates, filter, chunkScoreMode);
+        searchSourceBuilder.query(new WrapperQueryBuilder(knn));
+        SearchRequest searchRequest = new SearchRequest(index);
+        searchRequest.source(searchSourceBuilder);
+        return searchRequest;
+    }
+
+    static List<VectorHit> toHits(SearchResponse searchResponse) {
+        List<VectorHit> hits = new ArrayList<>();
+        for (SearchHit hit : searchResponse.getHits().getHits()) {
+            hits.add(new VectorHit(hit.getId(), hit.getScore(), hit.getSourceAsString()));
+        }
+        return hits;
+    }
+}
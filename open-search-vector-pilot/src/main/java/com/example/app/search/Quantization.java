@@ -0,0 +1,25 @@
+package com.example.app.search;
+
+import java.util.Locale;
+
+public enum Quantization {
+    NONE,
+    INT8,
+    BINARY;
+
+    public static Quantization fromConfig(String value) {
+        return value == null || value.isBlank() ? NONE : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Bytes the scanned representation of one vector takes
+    public long bytesPerVector(int dims) {
+        switch (this) {
+            case INT8:
+                return dims;
+            case BINARY:
+                return ((dims + 63) / 64) * 8L;
+            default:
+                return dims * 4L;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.app.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Prints recall@k against exact float search and, for each quantization
+ * mode, the bytes scanned per vector and the bytes actually held per vector.
+ *
+ * Usage: QuantizationReport [books-with-embeddings.json] [k] [queries]
+ * Without a file, clustered synthetic 1536-dim vectors are used.
+ */
+public class QuantizationReport {
+
+    public static void main(String[] args) throws IOException {
+        List<float[]> vectors = args.length > 0 ? load(args[0]) : synthetic(20_000, 1536, 200);
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        if (vectors.isEmpty()) {
+            System.out.println("No embeddings found.");
+            return;
+        }
+        int dims = vectors.get(0).length;
+
+        // Queries are perturbed copies of stored vectors, like a paraphrased search
+        SplittableRandom random = new SplittableRandom(7);
+        List<float[]> queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            float[] base = vectors.get(random.nextInt(vectors.size()));
+            float[] q = new float[dims];
+            for (int d = 0; d < dims; d++) {
+                q[d] = base[d] + (float) (random.nextGaussian() * 0.02);
+            }
+            queries.add(q);
+        }
+
+        LocalVectorSearchEngine exact = new LocalVectorSearchEngine(dims, 16, 200, 100, Integer.MAX_VALUE);
+        QuantizedVectorSearchEngine int8 = new QuantizedVectorSearchEngine(Quantization.INT8, dims, 1000, 1);
+        QuantizedVectorSearchEngine binaryNoRescore = new QuantizedVectorSearchEngine(Quantization.BINARY, dims, 1000, 1);
+        QuantizedVectorSearchEngine binary = new QuantizedVectorSearchEngine(Quantization.BINARY, dims, 1000, 10);
+        for (int i = 0; i < vectors.size(); i++) {
+            String id = Integer.toString(i);
+            exact.put(id, vectors.get(i), null);
+            int8.put(id, vectors.get(i), null);
+            binaryNoRescore.put(id, vectors.get(i), null);
+            binary.put(id, vectors.get(i), null);
+        }
+
+        System.out.printf("%d vectors, %d dims, %d queries, recall@%d%n", vectors.size(), dims, queryCount, k);
+        System.out.printf("%-22s %10s %14s %14s%n", "mode", "recall", "scanned bytes", "heap bytes");
+        long floatBytes = Quantization.NONE.bytesPerVector(dims);
+        report("none (float32)", exact, exact, queries, k, floatBytes, floatBytes);
+        report("int8", int8, exact, queries, k, Quantization.INT8.bytesPerVector(dims), heapBytesPerVector(int8));
+        // Binary codes are scanned, but the floats stay in the heap for rescoring; OpenSearch on_disk mode
+        // leaves them on disk instead
+        report("binary", binaryNoRescore, exact, queries, k, Quantization.BINARY.bytesPerVector(dims),
+            heapBytesPerVector(binaryNoRescore));
+        report("binary + rescore x10", binary, exact, queries, k, Quantization.BINARY.bytesPerVector(dims),
+            heapBytesPerVector(binary));
+    }
+
+    // What the engine actually holds per vector, full-precision copies included
+    private static long heapBytesPerVector(QuantizedVectorSearchEngine engine) {
+        return engine.size() > 0 ? engine.memoryBytes() / engine.size() : 0;
+    }
+
+    private static void report(String name, VectorSearchEngine engine, LocalVectorSearchEngine exact,
+                               List<float[]> queries, int k, long scannedBytes, long heapBytes) {
+        double recall = 0;
+        for (float[] q : queries) {
+            Set<String> expected = new HashSet<>();
+            for (VectorHit hit : exact.exactSearch(q, k)) expected.add(hit.id());
+            int found = 0;
+            try {
+                for (VectorHit hit : engine.search(q, k)) {
+                    if (expected.contains(hit.id())) found++;
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            recall += (double) found / expected.size();
+        }
+        System.out.printf("%-22s %10.3f %14d %14d%n", name, recall / queries.size(), scannedBytes, heapBytes);
+    }
+
+    private static List<float[]> load(String path) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(Paths.get(path).toFile());
+        List<float[]> vectors = new ArrayList<>();
+        for (JsonNode node : root) {
+            JsonNode embedding = node.has("_source") ? node.get("_source").get("embedding") : node.get("embedding");
+            if (embedding == null || !embedding.isArray() || embedding.size() == 0) continue;
+            float[] v = new float[embedding.size()];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = embedding.get(i).floatValue();
+            }
+            vectors.add(v);
+        }
+        return vectors;
+    }
+
+    // Gaussian clusters, closer to real embedding distributions than uniform noise
+    static List<float[]> synthetic(int count, int dims, int clusters) {
+        SplittableRandom random = new SplittableRandom(42);
+        float[][] centers = new float[clusters][dims];
+        for (float[] c : centers) {
+            for (int d = 0; d < dims; d++) c[d] = (float) random.nextGaussian();
+        }
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] c = centers[random.nextInt(clusters)];
+            float[] v = new float[dims];
+            for (int d = 0; d < dims; d++) v[d] = c[d] + (float) (random.nextGaussian() * 0.5);
+            vectors.add(v);
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.app.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Exact-scan in-memory index over quantized vectors.
+ *
+ * The first {@code calibrationSize} vectors are kept at full precision and
+ * used to calibrate the quantizer; after that, INT8 keeps only the codes (a
+ * quarter of the float size) and scores them asymmetrically against the
+ * float query, while BINARY ranks by Hamming distance over 1 bit per
+ * dimension and rescores the best {@code k * oversample} candidates against
+ * the full-precision vectors.
+ */
+public class QuantizedVectorSearchEngine implements InMemoryVectorIndex {
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final Quantization mode;
+    private final int dims;
+    private final int calibrationSize;
+    private final int oversample;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private List<String> idsBySlot = new ArrayList<>();
+    private List<String> sourcesBySlot = new ArrayList<>();
+    private BitSet deleted = new BitSet();
+    private int slots;
+
+    // Full precision: until calibration for INT8, always for BINARY rescoring
+    private FlatVectorIndex full;
+    private ScalarQuantizer scalar;
+    private byte[] codes;
+    private BinaryQuantizer binary;
+    private long[] bits;
+
+    public QuantizedVectorSearchEngine(Quantization mode, int dims, int calibrationSize, int oversample) {
+        if (mode == Quantization.NONE) throw new IllegalArgumentException("Use LocalVectorSearchEngine for unquantized vectors");
+        this.mode = mode;
+        this.dims = dims;
+        this.calibrationSize = Math.max(1, calibrationSize);
+        this.oversample = Math.max(1, oversample);
+        this.full = new FlatVectorIndex(dims, 1024);
+    }
+
+    @Override
+    public void put(String id, float[] vector, String source) {
+        if (vector == null || vector.length != dims) {
+            // No usable vector: the entry must not keep serving an older one
+            remove(id);
+            return;
+        }
+        float[] unit = VectorMath.normalize(vector);
+        lock.writeLock().lock();
+        try {
+            Integer old = slotsById.remove(id);
+            if (old != null) {
+                markDeleted(old);
+            }
+            int slot = slots++;
+            idsBySlot.add(id);
+            sourcesBySlot.add(source);
+            slotsById.put(id, slot);
+            if (!calibrated()) {
+                full.add(unit);
+                if (slots >= calibrationSize) calibrate();
+            } else {
+                if (full != null) full.add(unit);
+                encode(unit, slot);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                markDeleted(slot);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeIf(Predicate<String> source) {
+        lock.writeLock().lock();
+        try {
+            List<String> matching = new ArrayList<>();
+            slotsById.forEach((id, slot) -> {
+                if (source.test(sourcesBySlot.get(slot))) matching.add(id);
+            });
+            for (String id : matching) {
+                markDeleted(slotsById.remove(id));
+            }
+            compactIfNeeded();
+            return matching.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes held per live vector by the scanned representation plus any full-precision copy
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long total = full != null ? (long) full.slots() * dims * 4 : 0;
+            if (codes != null) total += (long) slots * dims;
+            if (bits != null) total += (long) slots * binary.words() * 8;
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(float[] query, int k) {
+        if (query.length != dims) {
+            throw new IllegalArgumentException("Query vector must be of length " + dims);
+        }
+        float[] unit = VectorMath.normalize(query);
+        lock.readLock().lock();
+        try {
+            float[] scores = new float[k];
+            int[] found;
+            if (!calibrated()) {
+                found = full.search(unit, k, scores);
+            } else if (mode == Quantization.INT8) {
+                found = searchInt8(unit, k, scores);
+            } else {
+                found = searchBinary(unit, k, scores);
+            }
+            List<VectorHit> hits = new ArrayList<>(found.length);
+            for (int i = 0; i < found.length; i++) {
+                hits.add(new VectorHit(idsBySlot.get(found[i]), scores[i], sourcesBySlot.get(found[i])));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] searchInt8(float[] unit, int k, float[] scores) {
+        ScalarQuantizer.PreparedQuery prepared = scalar.prepare(unit);
+        TopK top = new TopK(k);
+        for (int slot = 0; slot < slots; slot++) {
+            if (deleted.get(slot)) continue;
+            top.offer(slot, prepared.dot(codes, slot * dims));
+        }
+        return top.drainDescending(scores);
+    }
+
+    private int[] searchBinary(float[] unit, int k, float[] scores) {
+        int words = binary.words();
+        long[] queryBits = binary.encode(unit);
+        int candidates = k * oversample;
+        TopK coarse = new TopK(candidates);
+        for (int slot = 0; slot < slots; slot++) {
+            if (deleted.get(slot)) continue;
+            // Higher is better in TopK, so rank by negated distance
+            coarse.offer(slot, -BinaryQuantizer.hamming(queryBits, 0, bits, slot * words, words));
+        }
+        int[] shortlist = coarse.drainDescending(new float[candidates]);
+        TopK top = new TopK(k);
+        for (int slot : shortlist) {
+            top.offer(slot, full.similarity(unit, slot));
+        }
+        return top.drainDescending(scores);
+    }
+
+    private void markDeleted(int slot) {
+        deleted.set(slot);
+        sourcesBySlot.set(slot, null);
+        if (full != null) full.delete(slot);
+    }
+
+    private boolean calibrated() {
+        return scalar != null || binary != null;
+    }
+
+    private void calibrate() {
+        List<float[]> sample = new ArrayList<>();
+        for (int slot = 0; slot < full.slots(); slot++) {
+            if (!deleted.get(slot)) sample.add(full.vector(slot));
+        }
+        if (sample.isEmpty()) return;
+        if (mode == Quantization.INT8) {
+            scalar = ScalarQuantizer.calibrate(sample);
+        } else {
+            binary = BinaryQuantizer.calibrate(sample);
+        }
+        FlatVectorIndex calibrationVectors = full;
+        for (int slot = 0; slot < slots; slot++) {
+            encode(calibrationVectors.vector(slot), slot);
+        }
+        if (mode == Quantization.INT8) {
+            full = null;
+        }
+    }
+
+    private void encode(float[] unit, int slot) {
+        if (mode == Quantization.INT8) {
+            long needed = (slot + 1L) * dims;
+            if (codes == null) codes = new byte[grownLength(512L * dims, needed, "int8 codes")];
+            if (needed > codes.length) codes = Arrays.copyOf(codes, grownLength(codes.length, needed, "int8 codes"));
+            scalar.encode(unit, codes, slot * dims);
+        } else {
+            int words = binary.words();
+            long needed = (slot + 1L) * words;
+            if (bits == null) bits = new long[grownLength(512L * words, needed, "binary codes")];
+            if (needed > bits.length) bits = Arrays.copyOf(bits, grownLength(bits.length, needed, "binary codes"));
+            binary.encode(unit, bits, slot * words);
+        }
+    }
+
+    // Doubles, in long arithmetic so large indices fail with a clear message instead of an overflowed length
+    static int grownLength(long current, long needed, String what) {
+        if (needed > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("Quantized index is full: " + what + " for " + needed
+                + " values exceed the largest array; use fewer vectors or binary quantization");
+        }
+        return (int) Math.min(MAX_ARRAY_LENGTH, Math.max(current * 2, needed));
+    }
+
+    private void compactIfNeeded() {
+        int dead = deleted.cardinality();
+        if (dead < 1024 || dead * 2 < slots) return;
+        int live = slotsById.size();
+        List<String> ids = new ArrayList<>(live);
+        List<String> sources = new ArrayList<>(live);
+        FlatVectorIndex compactedFull = full != null ? new FlatVectorIndex(dims, live) : null;
+        byte[] compactedCodes = codes != null ? new byte[Math.max(1, live) * dims] : null;
+        int words = binary != null ? binary.words() : 0;
+        long[] compactedBits = bits != null ? new long[Math.max(1, live) * words] : null;
+        int next = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (deleted.get(slot)) continue;
+            if (compactedFull != null) compactedFull.add(full.vector(slot));
+            if (compactedCodes != null) System.arraycopy(codes, slot * dims, compactedCodes, next * dims, dims);
+            if (compactedBits != null) System.arraycopy(bits, slot * words, compactedBits, next * words, words);
+            ids.add(idsBySlot.get(slot));
+            sources.add(sourcesBySlot.get(slot));
+            slotsById.put(idsBySlot.get(slot), next);
+            next++;
+        }
+        full = compactedFull;
+        codes = compactedCodes;
+        bits = compactedBits;
+        idsBySlot = ids;
+        sourcesBySlot = sources;
+        deleted = new BitSet();
+        slots = next;
+    }
+}
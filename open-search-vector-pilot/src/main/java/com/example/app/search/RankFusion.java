@@ -0,0 +1,74 @@
+package com.example.app.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Merges ranked hit lists from different retrievers into one list.
+ *
+ * RRF scores a document by {@code sum(weight / (rankConstant + rank))} and
+ * ignores the raw scores, so BM25 and cosine never need to be comparable.
+ * WEIGHTED min-max normalizes each list's scores to [0, 1] and sums them
+ * with the given weights; a document missing from a list gets 0 from it.
+ */
+public final class RankFusion {
+    public enum Method {
+        RRF,
+        WEIGHTED;
+
+        public static Method fromConfig(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Method method;
+    private final double[] weights;
+    private final int rankConstant;
+
+    public RankFusion(Method method, double[] weights, int rankConstant) {
+        this.method = method;
+        this.weights = weights.clone();
+        this.rankConstant = rankConstant;
+    }
+
+    // lists.get(i) is ranked best first and weighted by weights[i]
+    public List<VectorHit> fuse(List<List<VectorHit>> lists, int size) {
+        if (lists.size() != weights.length) {
+            throw new IllegalArgumentException("Expected " + weights.length + " hit lists but got " + lists.size());
+        }
+        Map<String, Double> scores = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int l = 0; l < lists.size(); l++) {
+            List<VectorHit> hits = lists.get(l);
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (VectorHit hit : hits) {
+                min = Math.min(min, hit.score());
+                max = Math.max(max, hit.score());
+            }
+            for (int rank = 0; rank < hits.size(); rank++) {
+                VectorHit hit = hits.get(rank);
+                double contribution;
+                if (method == Method.RRF) {
+                    contribution = weights[l] / (rankConstant + rank + 1);
+                } else {
+                    // A list whose scores are all equal counts every hit as a full match
+                    contribution = weights[l] * (max > min ? (hit.score() - min) / (max - min) : 1.0);
+                }
+                scores.merge(hit.id(), contribution, Double::sum);
+                sources.putIfAbsent(hit.id(), hit.source());
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        List<VectorHit> fused = new ArrayList<>(Math.min(size, ranked.size()));
+        for (Map.Entry<String, Double> entry : ranked) {
+            if (fused.size() >= size) break;
+            fused.add(new VectorHit(entry.getKey(), entry.getValue().floatValue(), sources.get(entry.getKey())));
+        }
+        return fused;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.app.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * int8 scalar quantization with per-dimension min/max calibration: each
+ * component maps linearly from [min, max] onto [-128, 127] and is clipped
+ * outside the calibrated range. Scoring is asymmetric: the float query is
+ * compared against the codes without decoding them.
+ */
+public final class ScalarQuantizer {
+    private final float[] min;
+    private final float[] step;
+
+    private ScalarQuantizer(float[] min, float[] step) {
+        this.min = min;
+        this.step = step;
+    }
+
+    public static ScalarQuantizer calibrate(List<float[]> sample) {
+        int dims = sample.get(0).length;
+        float[] min = new float[dims];
+        float[] max = new float[dims];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (float[] v : sample) {
+            for (int i = 0; i < dims; i++) {
+                if (v[i] < min[i]) min[i] = v[i];
+                if (v[i] > max[i]) max[i] = v[i];
+            }
+        }
+        float[] step = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            step[i] = max[i] > min[i] ? (max[i] - min[i]) / 255f : 1f;
+        }
+        return new ScalarQuantizer(min, step);
+    }
+
+    public int dims() {
+        return min.length;
+    }
+
+    public void encode(float[] v, byte[] out, int offset) {
+        for (int i = 0; i < min.length; i++) {
+            int q = Math.round((v[i] - min[i]) / step[i]);
+            q = Math.max(0, Math.min(255, q));
+            out[offset + i] = (byte) (q - 128);
+        }
+    }
+
+    public byte[] encode(float[] v) {
+        byte[] out = new byte[min.length];
+        encode(v, out, 0);
+        return out;
+    }
+
+    public float[] decode(byte[] codes, int offset) {
+        float[] v = new float[min.length];
+        for (int i = 0; i < min.length; i++) {
+            v[i] = min[i] + (codes[offset + i] + 128) * step[i];
+        }
+        return v;
+    }
+
+    /**
+     * Precomputes query terms so that dot(query, decode(codes)) costs one
+     * multiply-add per dimension.
+     */
+    public PreparedQuery prepare(float[] query) {
+        float bias = 0;
+        float[] weights = new float[min.length];
+        for (int i = 0; i < min.length; i++) {
+            bias += query[i] * (min[i] + 128 * step[i]);
+            weights[i] = query[i] * step[i];
+        }
+        return new PreparedQuery(bias, weights);
+    }
+
+    public static final class PreparedQuery {
+        private final float bias;
+        private final float[] weights;
+
+        private PreparedQuery(float bias, float[] weights) {
+            this.bias = bias;
+            this.weights = weights;
+        }
+
+        public float dot(byte[] codes, int offset) {
+            float s0 = 0, s1 = 0;
+            int i = 0;
+            for (; i + 1 < weights.length; i += 2) {
+                s0 += weights[i] * codes[offset + i];
+                s1 += weights[i + 1] * codes[offset + i + 1];
+            }
+            for (; i < weights.length; i++) {
+                s0 += weights[i] * codes[offset + i];
+            }
+            return bias + s0 + s1;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.app.search;
+
+import java.util.Locale;
+
+/**
+ * Similarity spaces of the OpenSearch k-NN plugin. Scores follow the plugin's
+ * conversions, so higher is always closer and the values can be compared with
+ * the {@code _score} of a kNN query.
+ */
+public enum SpaceType {
+    COSINESIMIL,
+    L2,
+    INNERPRODUCT;
+
+    public static SpaceType fromConfig(String value) {
+        return value == null || value.isBlank() ? COSINESIMIL : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public float score(float[] a, float[] b) {
+        switch (this) {
+            case L2: {
+                float distance = VectorMath.dot(a, a) - 2 * VectorMath.dot(a, b) + VectorMath.dot(b, b);
+                return 1 / (1 + Math.max(0, distance));
+            }
+            case INNERPRODUCT: {
+                float dot = VectorMath.dot(a, b);
+                return dot >= 0 ? dot + 1 : 1 / (1 - dot);
+            }
+            default: {
+                float norms = (float) Math.sqrt(VectorMath.dot(a, a) * VectorMath.dot(b, b));
+                return norms == 0 ? 0 : (1 + VectorMath.dot(a, b) / norms) / 2;
+            }
+        }
+    }
+}
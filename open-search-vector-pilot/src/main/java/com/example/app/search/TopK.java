@@ -0,0 +1,87 @@
+package com.example.app.search;
+
+/**
+ * Bounded min-heap of (slot, score) pairs keeping the k highest scores,
+ * backed by primitive arrays.
+ */
+final class TopK {
+    private final int[] slots;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.slots = new int[k];
+        this.scores = new float[k];
+    }
+
+    boolean isFull() {
+        return size == slots.length;
+    }
+
+    float minScore() {
+        return scores[0];
+    }
+
+    void offer(int slot, float score) {
+        if (slots.length == 0) return;
+        if (size < slots.length) {
+            slots[size] = slot;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            slots[0] = slot;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Drains the heap; returns slots ordered best first, scores written into outScores
+    int[] drainDescending(float[] outScores) {
+        int n = size;
+        int[] ordered = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            ordered[i] = slots[0];
+            outScores[i] = scores[0];
+            size--;
+            slots[0] = slots[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return ordered;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && scores[right] < scores[left]) smallest = right;
+            if (scores[i] <= scores[smallest]) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int s = slots[a];
+        slots[a] = slots[b];
+        slots[b] = s;
+        float f = scores[a];
+        scores[a] = scores[b];
+        scores[b] = f;
+    }
+}
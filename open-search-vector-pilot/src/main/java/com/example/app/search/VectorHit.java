@@ -0,0 +1,8 @@
+package com.example.app.search;
+
+/**
+ * One vector search result. {@code source} is the stored document JSON, or
+ * null when the engine does not keep sources.
+ */
+public record VectorHit(String id, float score, String source) {
+}
@@ -0,0 +1,11 @@
+package com.example.app.search;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface VectorSearchEngine {
+    /**
+     * Returns the k nearest documents to the query vector, best first.
+     */
+    List<VectorHit> search(float[] query, int k) throws IOException;
+}
@@ -0,0 +1,75 @@
+package com.example.app.service;
+
+import com.example.app.embedding.TextChunker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+public final class BookDocuments {
+    // Fields embeddingText reads; only changes to these need a new vector
+    public static final List<String> TEXT_FIELDS = List.of("description", "title", "author");
+    // SHA-256 of the embedding text the stored vector was computed from
+    public static final String TEXT_HASH_FIELD = "embedding_text_hash";
+    // Nested {"vector":[...]} objects, one per description window, when chunking is enabled
+    public static final String CHUNKS_FIELD = "chunks";
+    // Copy of the document _id in a keyword field, so sorting on it reads doc values, not _id fielddata
+    public static final String DOC_ID_FIELD = "doc_id";
+
+    private BookDocuments() {
+    }
+
+    // Compose text for embedding: description + title + author
+    public static String embeddingText(JsonNode node) {
+        return (node.has("description") ? node.get("description").asText("") : "") +
+               (node.has("title") ? " " + node.get("title").asText("") : "") +
+               (node.has("author") ? " " + node.get("author").asText("") : "");
+    }
+
+    // Embedding texts of the description windows, each followed by title and author like embeddingText.
+    // A description that fits one window yields exactly embeddingText; EmbeddingService.embedAll sends
+    // that text to the model once and hands the same vector back for the book and its single chunk
+    public static List<String> chunkTexts(JsonNode node, TextChunker chunker) {
+        List<String> windows = chunker.windows(node.has("description") ? node.get("description").asText("") : "");
+        if (windows.size() <= 1) {
+            return List.of(embeddingText(node));
+        }
+        List<String> texts = new ArrayList<>(windows.size());
+        for (String window : windows) {
+            ObjectNode chunk = JsonNodeFactory.instance.objectNode().put("description", window);
+            texts.add(embeddingText(mergeTextFields(node, chunk)));
+        }
+        return texts;
+    }
+
+    public static boolean hasEmbeddingText(JsonNode node) {
+        for (String field : TEXT_FIELDS) {
+            if (node.has(field)) return true;
+        }
+        return false;
+    }
+
+    // Text fields of the stored document (may be null) with those of a partial update applied on top
+    public static ObjectNode mergeTextFields(JsonNode stored, JsonNode partial) {
+        ObjectNode merged = JsonNodeFactory.instance.objectNode();
+        for (String field : TEXT_FIELDS) {
+            JsonNode value = partial.has(field) ? partial.get(field) : stored != null ? stored.get(field) : null;
+            if (value != null && !value.isNull()) merged.set(field, value);
+        }
+        return merged;
+    }
+
+    public static String textHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.app.service;
+
+import com.example.app.embedding.EmbeddingService;
+import com.example.app.embedding.TextChunker;
+import com.example.app.ingest.EmbeddingRetryQueue;
+import com.example.app.metrics.BookMetrics;
+import com.example.app.opensearch.IndexLifecycle;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.get.MultiGetItemResponse;
+import org.opensearch.action.get.MultiGetRequest;
+import org.opensearch.action.get.MultiGetResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embeds documents for single and bulk writes: the book text and, with
+ * chunking, its description windows in one batched call. Documents a write
+ * could not embed are queued on an {@link EmbeddingRetryQueue} and get their
+ * vectors in the background.
+ */
+@Component
+public class BookEmbedder {
+    private static final Logger log = LoggerFactory.getLogger(BookEmbedder.class);
+    static final FetchSourceContext TEXT_SOURCE = new FetchSourceContext(true,
+        textSourceFields(), new String[0]);
+    private final RestHighLevelClient client;
+    @Autowired
+    private EmbeddingService embeddingService;
+    @Autowired
+    private BookMetrics metrics;
+    @Autowired
+    private BookIndex books;
+    @Value("${books.embedding.chunking.enabled:false}")
+    private boolean chunking;
+    @Value("${books.embedding.chunking.window-tokens:200}")
+    private int chunkWindowTokens;
+    @Value("${books.embedding.chunking.overlap-tokens:40}")
+    private int chunkOverlapTokens;
+    @Value("${books.embedding.chunking.max-chunks:16}")
+    private int maxChunks;
+    @Value("${books.embedding.retry.capacity:10000}")
+    private int embeddingRetryCapacity;
+    @Value("${books.embedding.retry.interval-ms:30000}")
+    private long embeddingRetryIntervalMs;
+    @Value("${books.embedding.retry.batch-size:64}")
+    private int embeddingRetryBatchSize;
+    @Value("${books.embedding.retry.max-attempts:5}")
+    private int embeddingRetryMaxAttempts;
+
+    private ObjectMapper mapper;
+    private String index;
+    private IndexLifecycle indexLifecycle;
+    private TextChunker chunker;
+    private EmbeddingRetryQueue embeddingRetries;
+
+    // Shared pooled client from OpenSearchClientConfig
+    public BookEmbedder(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void init() {
+        mapper = books.mapper();
+        index = books.alias();
+        indexLifecycle = books.lifecycle();
+        if (chunking) {
+            chunker = new TextChunker(chunkWindowTokens, chunkOverlapTokens, maxChunks);
+        }
+        // Documents written without a vector while the provider failed get it in the background
+        embeddingRetries = new EmbeddingRetryQueue(embeddingRetryCapacity, embeddingRetryBatchSize,
+            embeddingRetryMaxAttempts, this::retryEmbeddings, this::missingEmbeddings);
+        embeddingRetries.start(embeddingRetryIntervalMs);
+    }
+
+    @PreDestroy
+    void close() {
+        embeddingRetries.close();
+    }
+
+    // Null unless chunking is enabled
+    public TextChunker chunker() {
+        return chunker;
+    }
+
+    public void defer(String id) {
+        embeddingRetries.defer(id);
+    }
+
+    // Ids are only queued for the live index; after a rebuild the new one is searched for docs without vectors
+    public void sweepLater() {
+        embeddingRetries.sweepLater();
+    }
+
+    public EmbeddingRetryQueue.Stats retryStats() {
+        return embeddingRetries.stats();
+    }
+
+    // Document vector plus, with chunking enabled, one vector per description window (null otherwise)
+    record DocVectors(float[] embedding, List<float[]> chunks) {
+        // Only a fully embedded document records its text hash, so a failed one is re-embedded on the next update
+        boolean complete() {
+            if (embedding.length == 0) return false;
+            if (chunks != null) {
+                for (float[] chunk : chunks) {
+                    if (chunk.length == 0) return false;
+                }
+            }
+            return true;
+        }
+
+        List<float[]> writableChunks() {
+            return chunks == null ? null : chunks.stream().filter(chunk -> chunk.length > 0).toList();
+        }
+    }
+
+    // One batched embedding call for the text and chunk texts of every document
+    List<DocVectors> embed(List<? extends JsonNode> docs) {
+        return embed(docs, this::getEmbeddings);
+    }
+
+    private List<DocVectors> embed(List<? extends JsonNode> docs, Function<List<String>, List<float[]>> embedder) {
+        if (docs.isEmpty()) return List.of();
+        List<String> texts = new ArrayList<>();
+        int[] starts = new int[docs.size() + 1];
+        for (int i = 0; i < docs.size(); i++) {
+            starts[i] = texts.size();
+            texts.add(BookDocuments.embeddingText(docs.get(i)));
+            if (chunker != null) texts.addAll(BookDocuments.chunkTexts(docs.get(i), chunker));
+        }
+        starts[docs.size()] = texts.size();
+        List<float[]> vectors = embedder.apply(texts);
+        List<DocVectors> result = new ArrayList<>(docs.size());
+        for (int i = 0; i < docs.size(); i++) {
+            List<float[]> chunks = chunker != null ? vectors.subList(starts[i] + 1, starts[i + 1]) : null;
+            result.add(new DocVectors(vectors.get(starts[i]), chunks));
+        }
+        return result;
+    }
+
+    // Results are in the same order as texts; a failed batch comes back as empty vectors, which are
+    // written without the vector and queued for a deferred retry
+    private List<float[]> getEmbeddings(List<String> texts) {
+        try {
+            return embeddingService.embedAll(texts);
+        } catch (Exception e) {
+            log.warn("Embedding batch of {} texts failed: {}", texts.size(), e.getMessage());
+            return unembedded(texts.size());
+        }
+    }
+
+    static List<float[]> unembedded(int count) {
+        List<float[]> empty = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) empty.add(new float[0]);
+        return empty;
+    }
+
+    // The text fields after the update, or null when the stored vector was computed from the same text.
+    // A partial doc may carry only the title, so the text is rebuilt from the stored fields
+    ObjectNode changedText(ObjectNode doc, GetResponse stored) throws IOException {
+        JsonNode storedText = stored != null && stored.isExists() && stored.getSourceAsString() != null
+            ? mapper.readTree(stored.getSourceAsString()) : null;
+        ObjectNode text = BookDocuments.mergeTextFields(storedText, doc);
+        String hash = BookDocuments.textHash(BookDocuments.embeddingText(text));
+        if (storedText != null && hash.equals(storedText.path(BookDocuments.TEXT_HASH_FIELD).asText(null))) {
+            return null;
+        }
+        return text;
+    }
+
+    UpdateRequest updateRequest(String id, ObjectNode doc, GetResponse stored, ObjectNode text,
+                                DocVectors vectors) throws IOException {
+        UpdateRequest request = new UpdateRequest(index, id);
+        if (text == null) {
+            return request.doc(mapper.writeValueAsBytes(doc), XContentType.JSON);
+        }
+        if (vectors.complete()) {
+            doc.put(BookDocuments.TEXT_HASH_FIELD, BookDocuments.textHash(BookDocuments.embeddingText(text)));
+        } else {
+            // The stored vector stays until the deferred retry replaces it; no hash marks it as stale
+            doc.putNull(BookDocuments.TEXT_HASH_FIELD);
+        }
+        request.doc(VectorJson.withEmbedding(mapper, doc, vectors.embedding(), vectors.writableChunks()),
+            XContentType.JSON);
+        if (stored != null && stored.isExists()) {
+            // Fails with 409 if the text changed again after it was read
+            request.setIfSeqNo(stored.getSeqNo()).setIfPrimaryTerm(stored.getPrimaryTerm());
+        }
+        return request;
+    }
+
+    // Deferred embeddings: the text is read again and the vectors are written with a version check, so a
+    // text changed in the meantime never gets the vector of the old one. Provider failures propagate and
+    // leave the whole batch queued
+    private List<String> retryEmbeddings(List<String> ids) throws IOException {
+        // Not worth embedding what the write would refuse
+        indexLifecycle.checkWritable();
+        MultiGetRequest request = new MultiGetRequest();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(index, id).fetchSourceContext(TEXT_SOURCE));
+        }
+        MultiGetResponse response = metrics.observe(BookMetrics.OPENSEARCH, "mget",
+            () -> client.mget(request, RequestOptions.DEFAULT));
+        List<String> failed = new ArrayList<>();
+        List<GetResponse> stored = new ArrayList<>();
+        List<JsonNode> texts = new ArrayList<>();
+        for (MultiGetItemResponse item : response.getResponses()) {
+            if (item.isFailed()) {
+                failed.add(item.getId());
+                continue;
+            }
+            GetResponse get = item.getResponse();
+            // Deleted since, or nothing to embed
+            if (!get.isExists() || get.getSourceAsString() == null) continue;
+            JsonNode text = mapper.readTree(get.getSourceAsString());
+            if (!BookDocuments.hasEmbeddingText(text)) continue;
+            stored.add(get);
+            texts.add(text);
+        }
+        if (texts.isEmpty()) return failed;
+        List<DocVectors> vectors = embed(texts, embeddingService::embedAll);
+        BulkRequest bulk = new BulkRequest();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!vectors.get(i).complete()) {
+                failed.add(stored.get(i).getId());
+                continue;
+            }
+            ObjectNode doc = mapper.createObjectNode()
+                .put(BookDocuments.TEXT_HASH_FIELD, BookDocuments.textHash(BookDocuments.embeddingText(texts.get(i))));
+            bulk.add(new UpdateRequest(index, stored.get(i).getId())
+                .doc(VectorJson.withEmbedding(mapper, doc, vectors.get(i).embedding(), vectors.get(i).writableChunks()),
+                    XContentType.JSON)
+                .setIfSeqNo(stored.get(i).getSeqNo())
+                .setIfPrimaryTerm(stored.get(i).getPrimaryTerm()));
+        }
+        if (bulk.numberOfActions() == 0) return failed;
+        BulkResponse written = indexLifecycle.write(() -> metrics.observe(BookMetrics.OPENSEARCH, "bulk",
+            () -> client.bulk(bulk, RequestOptions.DEFAULT)));
+        for (BulkItemResponse item : written.getItems()) {
+            // 409: the text changed again and that write embedded (or deferred) it; 404: deleted
+            int status = item.isFailed() ? item.status().getStatus() : 200;
+            if (item.isFailed() && status != 409 && status != 404) failed.add(item.getId());
+        }
+        log.info("Re-embedded {} of {} deferred documents", ids.size() - failed.size(), ids.size());
+        return failed;
+    }
+
+    // Documents with text that were written without a vector. A failed re-embedding on update keeps the
+    // old vector and only drops the text hash, so it is not found here; the next text update re-embeds it
+    private List<String> missingEmbeddings(int max) throws IOException {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .mustNot(QueryBuilders.existsQuery("embedding"))
+            .minimumShouldMatch(1);
+        for (String field : BookDocuments.TEXT_FIELDS) {
+            query.should(QueryBuilders.existsQuery(field));
+        }
+        // Lenient: before the first write there is no index and nothing to find
+        SearchRequest request = new SearchRequest(index)
+            .indicesOptions(IndicesOptions.lenientExpandOpen())
+            .source(new SearchSourceBuilder().query(query).size(max).fetchSource(false));
+        SearchResponse response = metrics.observe(BookMetrics.OPENSEARCH, "missing_embeddings",
+            () -> client.search(request, RequestOptions.DEFAULT));
+        List<String> ids = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
+    private static String[] textSourceFields() {
+        List<String> fields = new ArrayList<>(BookDocuments.TEXT_FIELDS);
+        fields.add(BookDocuments.TEXT_HASH_FIELD);
+        return fields.toArray(new String[0]);
+    }
+}
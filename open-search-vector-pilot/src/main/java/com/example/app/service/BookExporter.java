@@ -0,0 +1,127 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.opensearch.action.search.CreatePitRequest;
+import org.opensearch.action.search.CreatePitResponse;
+import org.opensearch.action.search.DeletePitRequest;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.PointInTimeBuilder;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+import org.opensearch.search.sort.SortBuilders;
+import org.opensearch.search.sort.SortOrder;
+
+/**
+ * Streams every document of an index as NDJSON using a point in time and
+ * {@code search_after}, one page in memory at a time. Each line is
+ * {@code {"id":..,"cursor":..,"source":{..}}}; passing a line's cursor back
+ * resumes right after that document. {@link #scan} pages through the same
+ * way for callers that consume the hits themselves.
+ */
+public class BookExporter {
+    private static final TimeValue KEEP_ALIVE = TimeValue.timeValueMinutes(2);
+
+    private final RestHighLevelClient client;
+    private final String index;
+    private final ObjectMapper mapper;
+
+    public BookExporter(RestHighLevelClient client, String index, ObjectMapper mapper) {
+        this.client = client;
+        this.index = index;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param searchAfter sort values from a cursor, or null to start at the beginning
+     * @return number of documents written
+     */
+    public long export(OutputStream out, SourceProjection projection, Object[] searchAfter, int pageSize)
+            throws IOException {
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            return scan(projection.fetchSource(), searchAfter, pageSize, hits -> {
+                for (SearchHit hit : hits) {
+                    writeLine(gen, hit, hit.getSortValues());
+                }
+                gen.flush();
+            });
+        }
+    }
+
+    /**
+     * Hands every document to {@code pages}, one page of hits at a time, as
+     * of the point in time taken when the scan starts.
+     *
+     * @return number of documents scanned
+     */
+    public long scan(FetchSourceContext fetchSource, Object[] searchAfter, int pageSize, PageConsumer pages)
+            throws IOException {
+        CreatePitResponse pit = client.createPit(new CreatePitRequest(KEEP_ALIVE, false, index), RequestOptions.DEFAULT);
+        long scanned = 0;
+        try {
+            Object[] after = searchAfter;
+            while (true) {
+                SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(QueryBuilders.matchAllQuery())
+                    .size(pageSize)
+                    .fetchSource(fetchSource)
+                    .pointInTimeBuilder(new PointInTimeBuilder(pit.getId()).setKeepAlive(KEEP_ALIVE))
+                    // book_id keeps the export in catalog order; doc_id (the _id, but with doc values)
+                    // breaks ties and covers docs without one
+                    .sort(SortBuilders.fieldSort("book_id").order(SortOrder.ASC).missing("_last"))
+                    .sort(SortBuilders.fieldSort(BookDocuments.DOC_ID_FIELD).order(SortOrder.ASC)
+                        .unmappedType("keyword").missing("_last"));
+                if (after != null) {
+                    source.searchAfter(after);
+                }
+                SearchResponse response = client.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+                SearchHit[] hits = response.getHits().getHits();
+                if (hits.length > 0) {
+                    pages.accept(hits);
+                    after = hits[hits.length - 1].getSortValues();
+                    scanned += hits.length;
+                }
+                if (hits.length < pageSize) {
+                    return scanned;
+                }
+            }
+        } finally {
+            try {
+                client.deletePit(new DeletePitRequest(pit.getId()), RequestOptions.DEFAULT);
+            } catch (IOException e) {
+                // The PIT expires on its own after KEEP_ALIVE
+            }
+        }
+    }
+
+    private void writeLine(JsonGenerator gen, SearchHit hit, Object[] sortValues) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("id", hit.getId());
+        gen.writeStringField("cursor", ExportCursor.encode(mapper, sortValues));
+        gen.writeFieldName("source");
+        String source = hit.getSourceAsString();
+        if (source != null) {
+            gen.writeRawValue(source);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(SearchHit[] hits) throws IOException;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Structured restrictions on the keyword and numeric fields of the book
+ * mapping. Empty lists and null bounds mean "no restriction".
+ */
+public record BookFilter(List<String> languages, List<String> formats, List<String> publishers,
+                         Float minRating, Float maxRating, Integer minRatingsCount) {
+    public static final BookFilter NONE = new BookFilter(List.of(), List.of(), List.of(), null, null, null);
+
+    public BookFilter {
+        languages = languages != null ? List.copyOf(languages) : List.of();
+        formats = formats != null ? List.copyOf(formats) : List.of();
+        publishers = publishers != null ? List.copyOf(publishers) : List.of();
+        if (minRating != null && maxRating != null && minRating > maxRating) {
+            throw new IllegalArgumentException("minRating must not be greater than maxRating.");
+        }
+    }
+
+    // Keyword values are comma-separated
+    public static BookFilter of(String languages, String formats, String publishers,
+                                Float minRating, Float maxRating, Integer minRatingsCount) {
+        return new BookFilter(split(languages), split(formats), split(publishers), minRating, maxRating, minRatingsCount);
+    }
+
+    public boolean isEmpty() {
+        return languages.isEmpty() && formats.isEmpty() && publishers.isEmpty()
+            && minRating == null && maxRating == null && minRatingsCount == null;
+    }
+
+    // {"bool":{"filter":[{"terms":{...}},{"range":{...}}]}}, or null when empty
+    public JsonNode toQuery(ObjectMapper mapper) {
+        if (isEmpty()) return null;
+        ObjectNode query = mapper.createObjectNode();
+        ArrayNode clauses = query.putObject("bool").putArray("filter");
+        terms(clauses, "language", languages);
+        terms(clauses, "format", formats);
+        terms(clauses, "publisher", publishers);
+        if (minRating != null || maxRating != null) {
+            ObjectNode range = clauses.addObject().putObject("range").putObject("average_rating");
+            if (minRating != null) range.put("gte", minRating);
+            if (maxRating != null) range.put("lte", maxRating);
+        }
+        if (minRatingsCount != null) {
+            clauses.addObject().putObject("range").putObject("ratings_count").put("gte", minRatingsCount);
+        }
+        return query;
+    }
+
+    // Same semantics as toQuery, for sources that are not searched through OpenSearch
+    public boolean matches(JsonNode source) {
+        if (!matchesAny(source, "language", languages)
+            || !matchesAny(source, "format", formats)
+            || !matchesAny(source, "publisher", publishers)) {
+            return false;
+        }
+        JsonNode rating = source.get("average_rating");
+        if ((minRating != null || maxRating != null) && (rating == null || !rating.isNumber())) return false;
+        if (minRating != null && rating.floatValue() < minRating) return false;
+        if (maxRating != null && rating.floatValue() > maxRating) return false;
+        JsonNode count = source.get("ratings_count");
+        return minRatingsCount == null || (count != null && count.isNumber() && count.intValue() >= minRatingsCount);
+    }
+
+    private static void terms(ArrayNode clauses, String field, List<String> values) {
+        if (values.isEmpty()) return;
+        ArrayNode array = clauses.addObject().putObject("terms").putArray(field);
+        values.forEach(array::add);
+    }
+
+    private static boolean matchesAny(JsonNode source, String field, List<String> values) {
+        if (values.isEmpty()) return true;
+        JsonNode value = source.get(field);
+        return value != null && values.contains(value.asText());
+    }
+
+    private static List<String> split(String values) {
+        if (values == null || values.isBlank()) return List.of();
+        return Arrays.stream(values.split(",")).map(String::trim).filter(v -> !v.isEmpty()).toList();
+    }
+}
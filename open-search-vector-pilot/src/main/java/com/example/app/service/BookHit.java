@@ -0,0 +1,13 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * One document in an API response. The source is the projected {@code _source}
+ * JSON as OpenSearch returned it, embedded as-is rather than re-parsed; the
+ * score is absent for plain reads.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookHit(String id, Float score, @JsonRawValue String source) {
+}
@@ -0,0 +1,260 @@
+package com.example.app.service;
+
+import com.example.app.metrics.BookMetrics;
+import com.example.app.opensearch.IndexLifecycle;
+import com.example.app.opensearch.IndexSettings;
+import com.example.app.search.LocalVectorSearchEngine;
+import com.example.app.search.Quantization;
+import com.example.app.search.QuantizedVectorSearchEngine;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.indices.GetIndexRequest;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The books alias and what every service reads and writes it through: the
+ * {@link IndexLifecycle} that guards writes during a rebuild, the mapping of
+ * new index versions, the exporter and, when enabled, the in-process
+ * {@link LocalBookIndex}.
+ */
+@Component
+public class BookIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookIndex.class);
+    // The local index holds the book vector and the source; chunk vectors stay in OpenSearch
+    private static final FetchSourceContext LOCAL_SOURCE = new FetchSourceContext(true,
+        new String[0], new String[] {BookDocuments.CHUNKS_FIELD});
+    private final RestHighLevelClient client;
+    private final ObjectMapper mapper = JsonMapper.builder()
+                .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+                .build();
+    @Autowired
+    private BookMetrics metrics;
+    // Reads and writes go through the alias; the versioned indices behind it are managed by IndexLifecycle
+    @Value("${books.index.alias:vector-books-index}")
+    private String index;
+    @Value("${books.index.shards:1}")
+    private int indexShards;
+    @Value("${books.index.replicas:1}")
+    private int indexReplicas;
+    @Value("${books.index.refresh-interval:1s}")
+    private String indexRefreshInterval;
+    @Value("${books.index.knn.m:16}")
+    private int indexHnswM;
+    @Value("${books.index.knn.ef-construction:128}")
+    private int indexHnswEfConstruction;
+    @Value("${books.index.force-merge-segments:1}")
+    private int indexForceMergeSegments;
+    @Value("${books.index.retain-versions:1}")
+    private int indexRetainVersions;
+    @Value("${books.embedding.dimensions:1536}")
+    private int embeddingDimensions;
+    @Value("${books.embedding.chunking.enabled:false}")
+    private boolean chunking;
+    @Value("${books.vector-search.engine:opensearch}")
+    private String vectorSearchEngine;
+    @Value("${books.vector-search.local.enabled:false}")
+    private boolean localIndexEnabled;
+    @Value("${books.vector-search.local.hnsw-threshold:10000}")
+    private int hnswThreshold;
+    @Value("${books.vector-search.local.hnsw-m:16}")
+    private int hnswM;
+    @Value("${books.vector-search.local.hnsw-ef-construction:200}")
+    private int hnswEfConstruction;
+    @Value("${books.vector-search.local.hnsw-ef-search:100}")
+    private int hnswEfSearch;
+    @Value("${books.vector.quantization:none}")
+    private String quantization;
+    @Value("${books.vector.quantization.calibration-size:1000}")
+    private int quantizationCalibrationSize;
+    @Value("${books.vector.quantization.binary-oversample:10}")
+    private int binaryOversample;
+
+    private IndexSettings settings;
+    private IndexLifecycle indexLifecycle;
+    private BookExporter exporter;
+    private LocalBookIndex localIndex;
+
+    // Shared pooled client from OpenSearchClientConfig
+    public BookIndex(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void init() {
+        settings = new IndexSettings(indexShards, indexReplicas, indexRefreshInterval, indexHnswM,
+            indexHnswEfConstruction, indexForceMergeSegments, indexRetainVersions);
+        indexLifecycle = new IndexLifecycle(client, index, settings, this::indexMapping);
+        exporter = new BookExporter(client, index, mapper);
+        if (localIndexEnabled || "local".equals(vectorSearchEngine)) {
+            Quantization mode = Quantization.fromConfig(quantization);
+            localIndex = new LocalBookIndex(() -> mode == Quantization.NONE
+                ? new LocalVectorSearchEngine(embeddingDimensions, hnswM, hnswEfConstruction, hnswEfSearch, hnswThreshold)
+                : new QuantizedVectorSearchEngine(mode, embeddingDimensions, quantizationCalibrationSize, binaryOversample),
+                this::loadLocal);
+            localIndex.reload();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (localIndex != null) localIndex.close();
+    }
+
+    public String alias() {
+        return index;
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public IndexLifecycle lifecycle() {
+        return indexLifecycle;
+    }
+
+    public BookExporter exporter() {
+        return exporter;
+    }
+
+    // Null unless books.vector-search.local.enabled or the local engine is selected
+    public LocalBookIndex local() {
+        return localIndex;
+    }
+
+    // Cached after the first call, so writes do not pay an existence round trip
+    public void createIfNotExists() {
+        try {
+            metrics.observe(BookMetrics.OPENSEARCH, "index_exists", () -> {
+                indexLifecycle.ensureExists();
+                return null;
+            });
+        } catch (IOException e) {
+            log.warn("Could not create index {}: {}", index, e.getMessage());
+        }
+    }
+
+    // Every document as of a point in time of the alias; before the first write there is nothing to load
+    private void loadLocal(LocalBookIndex.Sink sink) throws IOException {
+        if (!client.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT)) return;
+        long scanned = metrics.observe(BookMetrics.OPENSEARCH, "local_load", () -> exporter.scan(LOCAL_SOURCE, null, 1000,
+            hits -> {
+                for (SearchHit hit : hits) {
+                    localEntry(hit.getId(), hit.getSourceAsString(), sink);
+                }
+            }));
+        log.info("Scanned {} documents of {} for the local vector index", scanned, index);
+    }
+
+    // Splits a stored document into its vector and the source without it; documents without one are skipped.
+    // Read-through hits carry the chunk vectors too, which the local index never holds
+    void localEntry(String id, String json, LocalBookIndex.Sink sink) throws IOException {
+        if (json == null) return;
+        JsonNode source = mapper.readTree(json);
+        JsonNode embedding = source.get("embedding");
+        if (embedding == null || !embedding.isArray() || embedding.size() != embeddingDimensions) return;
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        ((ObjectNode) source).remove(List.of("embedding", BookDocuments.CHUNKS_FIELD));
+        sink.put(id, vector, mapper.writeValueAsString(source));
+    }
+
+    private String indexMapping() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("book_id", Collections.singletonMap("type", "integer"));
+        properties.put("title", Collections.singletonMap("type", "text"));
+        properties.put("author", Collections.singletonMap("type", "text"));
+        properties.put("language", Collections.singletonMap("type", "keyword"));
+        properties.put("average_rating", Collections.singletonMap("type", "float"));
+        properties.put("ratings_count", Collections.singletonMap("type", "integer"));
+        properties.put("publication_date", Collections.singletonMap("type", "keyword"));
+        properties.put("format", Collections.singletonMap("type", "keyword"));
+        properties.put("publisher", Collections.singletonMap("type", "keyword"));
+        properties.put("description", Collections.singletonMap("type", "text"));
+        properties.put("image_url", Collections.singletonMap("type", "keyword"));
+        properties.put("shelves", Collections.singletonMap("type", "keyword"));
+        properties.put(BookDocuments.TEXT_HASH_FIELD, Map.of("type", "keyword", "index", false));
+        properties.put(BookDocuments.DOC_ID_FIELD, Collections.singletonMap("type", "keyword"));
+        Map<String, Object> embedding = new HashMap<>();
+        embedding.put("type", "knn_vector");
+        embedding.put("dimension", embeddingDimensions);
+        embedding.putAll(vectorMethod(Quantization.fromConfig(quantization)));
+        properties.put("embedding", embedding);
+        if (chunking) {
+            properties.put(BookDocuments.CHUNKS_FIELD, Map.of("type", "nested",
+                "properties", Map.of("vector", embedding)));
+        }
+        Map<String, Object> mapping = new HashMap<>();
+        mapping.put("properties", properties);
+        try {
+            return mapper.writeValueAsString(mapping);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // HNSW graph parameters: m links per node and the ef_construction candidate list used while
+    // building; larger values raise recall at the cost of memory and indexing time
+    private Map<String, Object> hnswParameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("m", settings.hnswM());
+        parameters.put("ef_construction", settings.hnswEfConstruction());
+        return parameters;
+    }
+
+    private Map<String, Object> vectorMethod(Quantization mode) {
+        if (mode != Quantization.NONE) {
+            return quantizationMapping(mode);
+        }
+        Map<String, Object> method = new HashMap<>();
+        method.put("name", "hnsw");
+        method.put("engine", "lucene");
+        method.put("space_type", "cosinesimil");
+        method.put("parameters", hnswParameters());
+        return Map.of("method", method);
+    }
+
+    // Quantization happens inside OpenSearch: documents still carry float vectors and
+    // the engine keeps its own int8 or 1-bit copy for the HNSW graph
+    private Map<String, Object> quantizationMapping(Quantization mode) {
+        Map<String, Object> fields = new HashMap<>();
+        if (mode == Quantization.INT8) {
+            Map<String, Object> parameters = hnswParameters();
+            parameters.put("encoder", Collections.singletonMap("name", "sq"));
+            Map<String, Object> method = new HashMap<>();
+            method.put("name", "hnsw");
+            method.put("engine", "lucene");
+            method.put("space_type", "cosinesimil");
+            method.put("parameters", parameters);
+            fields.put("method", method);
+        } else if (mode == Quantization.BINARY) {
+            // Binary codes in memory, full-precision rescoring from disk
+            fields.put("mode", "on_disk");
+            fields.put("compression_level", "32x");
+            // Nothing normalizes the embeddings, so let faiss do it rather than rank by raw inner product
+            fields.put("space_type", "cosinesimil");
+            fields.put("method", Map.of("name", "hnsw", "engine", "faiss", "parameters", hnswParameters()));
+        }
+        return fields;
+    }
+}
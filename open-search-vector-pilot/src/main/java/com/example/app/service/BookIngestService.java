@@ -0,0 +1,240 @@
+package com.example.app.service;
+
+import com.example.app.embedding.EmbeddingService;
+import com.example.app.embedding.EmbeddingUnavailableException;
+import com.example.app.ingest.AdaptiveBulkController;
+import com.example.app.ingest.BookJsonReader;
+import com.example.app.ingest.DeadLetterFile;
+import com.example.app.ingest.ImportCheckpoint;
+import com.example.app.ingest.IngestOptions;
+import com.example.app.ingest.IngestPipeline;
+import com.example.app.ingest.IngestReport;
+import com.example.app.ingest.RetryPolicy;
+import com.example.app.metrics.BookMetrics;
+import com.example.app.opensearch.IndexLifecycle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk loads of JSON book files through the {@link IngestPipeline}, either
+ * into the live alias (resumable) or into a new index version that replaces
+ * it, and in-place reindexing onto the current mapping.
+ */
+@Service
+public class BookIngestService {
+    private static final Logger log = LoggerFactory.getLogger(BookIngestService.class);
+    private final RestHighLevelClient client;
+    @Autowired
+    private EmbeddingService embeddingService;
+    @Autowired
+    private BookMetrics metrics;
+    @Autowired
+    private BookIndex books;
+    @Autowired
+    private BookEmbedder embedder;
+    @Autowired
+    private BookSearchService searchService;
+    @Value("${books.ingest.bulk-max-docs:500}")
+    private int bulkMaxDocs;
+    @Value("${books.ingest.bulk-max-mb:5}")
+    private int bulkMaxMb;
+    @Value("${books.embedding.batch-size:64}")
+    private int embeddingBatchSize;
+    @Value("${books.ingest.embed-workers:4}")
+    private int embedWorkers;
+    @Value("${books.ingest.index-workers:2}")
+    private int indexWorkers;
+    @Value("${books.ingest.queue-capacity:8}")
+    private int queueCapacity;
+    @Value("${books.ingest.state-dir:}")
+    private String ingestStateDir;
+    @Value("${books.ingest.max-retries:5}")
+    private int ingestMaxRetries;
+    @Value("${books.ingest.initial-backoff-ms:200}")
+    private long ingestInitialBackoffMs;
+    @Value("${books.ingest.max-backoff-ms:10000}")
+    private long ingestMaxBackoffMs;
+    @Value("${books.ingest.adaptive.enabled:true}")
+    private boolean adaptiveBulk;
+    @Value("${books.ingest.adaptive.min-docs:50}")
+    private int adaptiveMinDocs;
+    @Value("${books.ingest.adaptive.initial-docs:200}")
+    private int adaptiveInitialDocs;
+    @Value("${books.ingest.adaptive.target-latency-ms:1000}")
+    private long adaptiveTargetLatencyMs;
+    @Value("${books.index.rebuild.max-failures:0}")
+    private int rebuildMaxFailures;
+
+    private ObjectMapper mapper;
+    private String index;
+    private IndexLifecycle indexLifecycle;
+    private LocalBookIndex localIndex;
+
+    // Shared pooled client from OpenSearchClientConfig
+    public BookIngestService(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void init() {
+        mapper = books.mapper();
+        index = books.alias();
+        indexLifecycle = books.lifecycle();
+        localIndex = books.local();
+    }
+
+    // Resumable: a checkpoint next to the file (or in books.ingest.state-dir) records how far the
+    // import got, and a restart skips the committed prefix instead of re-embedding it.
+    // With rebuild, the file is loaded into a new index version that replaces the live one when done
+    public String createFromFile(String filePath, boolean rebuild) {
+        try {
+            if (!rebuild) {
+                books.createIfNotExists();
+                return ingest(filePath, index, true);
+            }
+            String[] result = new String[1];
+            String live = indexLifecycle.rebuild(target -> result[0] = ingest(filePath, target, false));
+            swapped();
+            embedder.sweepLater();
+            return result[0] + "; " + index + " now points to " + live;
+        } catch (IOException | UncheckedIOException e) {
+            return "Error indexing documents: " + e.getMessage();
+        }
+    }
+
+    // Copies the live index into a new version with the current mapping and settings, then swaps it in
+    public Map<String, Object> reindex() {
+        try {
+            String live = indexLifecycle.reindex();
+            swapped();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("alias", index);
+            result.put("index", live);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Cached hits and local vectors came from the previous version
+    private void swapped() {
+        searchService.indexSwapped();
+        if (localIndex != null) localIndex.reload();
+    }
+
+    private String ingest(String filePath, String target, boolean resumable) throws IOException {
+        Path source = Paths.get(filePath).toAbsolutePath();
+        Path stateDir = ingestStateDir.isBlank() ? source.getParent() : Paths.get(ingestStateDir);
+        Path deadLetterPath = stateDir.resolve(source.getFileName() + ".dead-letter.ndjson");
+        try (BookJsonReader reader = new BookJsonReader(mapper, source);
+             DeadLetterFile deadLetters = new DeadLetterFile(mapper, deadLetterPath)) {
+            if (!reader.isArray()) {
+                if (!resumable) throw new IOException(filePath + " does not hold a JSON array of books");
+                return "No documents indexed.";
+            }
+            // A rebuild always starts from an empty index, so it never resumes
+            ImportCheckpoint checkpoint = resumable ? ImportCheckpoint.open(mapper,
+                stateDir.resolve(source.getFileName() + ".checkpoint.json"), source.toString()) : null;
+            long resumeFrom = checkpoint != null ? reader.skip(checkpoint.offset()) : 0;
+            if (resumeFrom > 0) {
+                log.info("Resuming import of {} after {} committed documents", filePath, resumeFrom);
+            }
+            // Into the live alias, every bulk is a write a rebuild would miss; a rebuild's own target is not live
+            boolean live = target.equals(index);
+            IngestPipeline pipeline = new IngestPipeline(mapper, target, this::embedForIngest,
+                bulkRequest -> live
+                    ? indexLifecycle.write(() -> metrics.observe(BookMetrics.OPENSEARCH, "bulk",
+                        () -> client.bulk(bulkRequest, RequestOptions.DEFAULT)))
+                    : metrics.observe(BookMetrics.OPENSEARCH, "bulk",
+                        () -> client.bulk(bulkRequest, RequestOptions.DEFAULT)), ingestOptions())
+                .withRetries(new RetryPolicy(ingestMaxRetries, ingestInitialBackoffMs, ingestMaxBackoffMs))
+                .withCheckpoint(checkpoint)
+                .withDeadLetters(deadLetters);
+            if (adaptiveBulk) {
+                pipeline.withBulkController(new AdaptiveBulkController(adaptiveMinDocs,
+                    Math.min(adaptiveInitialDocs, bulkMaxDocs), bulkMaxDocs, (long) bulkMaxMb * 1024 * 1024,
+                    indexWorkers, adaptiveTargetLatencyMs));
+            }
+            if (embedder.chunker() != null) {
+                pipeline.withChunks(doc -> BookDocuments.chunkTexts(doc, embedder.chunker()));
+            }
+            if (resumable) {
+                pipeline.onEmbeddingFailed(embedder::defer);
+            }
+            // A rebuild's documents reach the local index when it reloads after the swap
+            if (localIndex != null && live) {
+                pipeline.onIndexed((id, doc, embedding) -> localIndex.put(id, embedding, mapper.writeValueAsString(doc)));
+            }
+            IngestReport report = pipeline.run(reader, resumeFrom,
+                () -> reportProgress(filePath, pipeline.indexedSoFar(), reader));
+            // Every document is indexed or dead-lettered, so the next run starts over
+            if (checkpoint != null) checkpoint.delete();
+            metrics.ingested(report.indexed(), report.failed(), report.retried());
+            int total = report.indexed() + report.failed();
+            log.info("Ingest throughput for {}: {}; {}", filePath, report.throughputSummary(), pipeline.bulkSizing());
+            if (!resumable && (report.indexed() == 0 || report.failed() > rebuildMaxFailures)) {
+                // The live index is kept; the new version is dropped by the rebuild
+                throw new IOException("Rebuild aborted, " + report.failed() + " of " + total
+                    + " documents failed (written to " + deadLetterPath + "): " + report.firstFailure());
+            }
+            if (total == 0) {
+                return "No documents indexed.";
+            }
+            String resumed = resumeFrom > 0 ? " (resumed after " + resumeFrom + " documents)" : "";
+            if (report.failed() == 0) {
+                return "Indexed " + report.indexed() + " documents from " + filePath + resumed;
+            } else {
+                return "Bulk indexing had failures (" + report.failed() + " of " + total + " documents" + resumed
+                    + ", written to " + deadLetterPath + "): " + report.firstFailure();
+            }
+        }
+    }
+
+    private static void reportProgress(String filePath, int docs, BookJsonReader reader) {
+        long percent = reader.totalBytes() > 0 ? reader.bytesRead() * 100 / reader.totalBytes() : 100;
+        log.info("Indexed {} documents from {} ({}% of file)", docs, filePath, percent);
+    }
+
+    private IngestOptions ingestOptions() {
+        return new IngestOptions(embeddingBatchSize, embedWorkers, indexWorkers, queueCapacity,
+            bulkMaxDocs, (long) bulkMaxMb * 1024 * 1024);
+    }
+
+    // Bulk ingestion waits out rate limits and an open circuit instead of indexing the file without vectors
+    private List<float[]> embedForIngest(List<String> texts) {
+        RetryPolicy backoff = new RetryPolicy(ingestMaxRetries, ingestInitialBackoffMs, ingestMaxBackoffMs);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return embeddingService.embedAll(texts);
+            } catch (EmbeddingUnavailableException e) {
+                if (attempt >= backoff.maxRetries()) {
+                    log.warn("Embedding batch of {} texts deferred: {}", texts.size(), e.getMessage());
+                    return BookEmbedder.unembedded(texts.size());
+                }
+                try {
+                    Thread.sleep(Math.max(e.retryAfterMillis(), backoff.backoffMillis(attempt)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return BookEmbedder.unembedded(texts.size());
+                }
+            } catch (Exception e) {
+                log.warn("Embedding batch of {} texts failed: {}", texts.size(), e.getMessage());
+                return BookEmbedder.unembedded(texts.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.app.service;
+
+import com.example.app.embedding.EmbeddingService;
+import com.example.app.metrics.BookMetrics;
+import com.example.app.search.InMemoryVectorIndex;
+import com.example.app.search.OpenSearchVectorSearchEngine;
+import com.example.app.search.RankFusion;
+import com.example.app.search.SingleFlight;
+import com.example.app.search.VectorHit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Field, vector and hybrid search over the books alias. Vector hit lists are
+ * cached briefly and identical concurrent queries share one round trip; the
+ * {@link LocalBookIndex}, when enabled, serves or backs up kNN once loaded.
+ */
+@Service
+public class BookSearchService {
+    private static final Logger log = LoggerFactory.getLogger(BookSearchService.class);
+    private static final String[] SEARCHABLE_FIELDS = {"author", "title"};
+    private final RestHighLevelClient client;
+    @Autowired
+    private EmbeddingService embeddingService;
+    @Autowired
+    private BookMetrics metrics;
+    @Autowired
+    private BookIndex books;
+    @Value("${books.search.result-cache.max-entries:1000}")
+    private long resultCacheMaxEntries;
+    @Value("${books.search.result-cache.ttl-seconds:30}")
+    private long resultCacheTtlSeconds;
+    @Value("${books.vector-search.engine:opensearch}")
+    private String vectorSearchEngine;
+    @Value("${books.search.hybrid.fusion:rrf}")
+    private String hybridFusion;
+    @Value("${books.search.hybrid.lexical-weight:1.0}")
+    private double hybridLexicalWeight;
+    @Value("${books.search.hybrid.vector-weight:1.0}")
+    private double hybridVectorWeight;
+    @Value("${books.search.hybrid.rank-constant:60}")
+    private int hybridRankConstant;
+    @Value("${books.search.hybrid.candidates:50}")
+    private int hybridCandidates;
+    @Value("${books.search.hybrid.size:10}")
+    private int hybridSize;
+    @Value("${books.search.hybrid.lexical-threads:32}")
+    private int lexicalThreads;
+    @Value("${books.search.hybrid.lexical-queue:64}")
+    private int lexicalQueue;
+    @Value("${books.search.async:true}")
+    private boolean asyncSearch;
+    @Value("${books.embedding.chunking.enabled:false}")
+    private boolean chunking;
+    @Value("${books.embedding.chunking.score-mode:max}")
+    private String chunkScoreMode;
+    @Value("${books.search.vector.k:5}")
+    private int vectorK;
+    @Value("${books.search.vector.num-candidates:100}")
+    private int vectorNumCandidates;
+
+    private final SingleFlight<String, List<BookHit>> vectorSearchFlight = new SingleFlight<>();
+    private ObjectMapper mapper;
+    private String index;
+    private LocalBookIndex localIndex;
+    private Cache<String, List<BookHit>> vectorResultCache;
+    private OpenSearchVectorSearchEngine openSearchEngine;
+    private ExecutorService lexicalExecutor;
+
+    // Shared pooled client from OpenSearchClientConfig
+    public BookSearchService(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void initCaches() {
+        mapper = books.mapper();
+        index = books.alias();
+        localIndex = books.local();
+        if (chunking && !"max".equals(chunkScoreMode) && !"avg".equals(chunkScoreMode)) {
+            throw new IllegalArgumentException("books.embedding.chunking.score-mode must be max or avg");
+        }
+        // With chunking, kNN runs over the chunk vectors and a book scores by its best (or mean) chunk
+        openSearchEngine = new OpenSearchVectorSearchEngine(client, index, mapper, chunking ? chunkScoreMode : null);
+        // Short-lived cache of hit lists for hot queries
+        vectorResultCache = Caffeine.newBuilder()
+            .maximumSize(resultCacheMaxEntries)
+            .expireAfterWrite(Duration.ofSeconds(resultCacheTtlSeconds))
+            .recordStats()
+            .build();
+        metrics.monitor(vectorResultCache, "vector-search-results");
+        // Bounded like the embedding pool; when threads and queue are full the request thread runs
+        // its own lexical search instead of piling up more threads against OpenSearch
+        lexicalExecutor = new ThreadPoolExecutor(lexicalThreads, lexicalThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, lexicalQueue)), r -> {
+                Thread t = new Thread(r, "hybrid-lexical");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void close() {
+        lexicalExecutor.shutdownNow();
+    }
+
+    // Cached hits came from the previous index version
+    public void indexSwapped() {
+        vectorResultCache.invalidateAll();
+    }
+
+    public List<BookHit> searchBooks(String field, String value, SourceProjection projection) {
+        try {
+            SearchRequest request = fieldSearchRequest(field, value, projection);
+            return counted("search", toBookHits(toHits(metrics.observe(BookMetrics.OPENSEARCH, "match",
+                () -> client.search(request, RequestOptions.DEFAULT)))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public CompletableFuture<List<BookHit>> searchBooksAsync(String field, String value, SourceProjection projection) {
+        if (!asyncSearch) {
+            return CompletableFuture.completedFuture(searchBooks(field, value, projection));
+        }
+        return searchAsync("match", fieldSearchRequest(field, value, projection))
+            .thenApply(response -> counted("search", toBookHits(toHits(response))));
+    }
+
+    private SearchRequest fieldSearchRequest(String field, String value, SourceProjection projection) {
+        if (!isSearchableField(field)) {
+            throw new IllegalArgumentException("Invalid field. Use 'author' or 'title'.");
+        }
+        SearchRequest searchRequest = new SearchRequest(index);
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(QueryBuilders.matchQuery(field, value));
+        searchSourceBuilder.fetchSource(projection.fetchSource());
+        searchRequest.source(searchSourceBuilder);
+        return searchRequest;
+    }
+
+    public List<BookHit> hybridSearchBooks(String query, String fusion, SourceProjection projection) {
+        RankFusion rankFusion = rankFusion(fusion);
+        // BM25 runs while the query is embedded and sent to kNN, so latency is the slower branch, not the sum
+        CompletableFuture<List<VectorHit>> lexical = CompletableFuture.supplyAsync(() -> {
+            try {
+                return lexicalSearch(query, hybridCandidates, projection);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, lexicalExecutor);
+        try {
+            List<VectorHit> vector = searchVectors(embeddingService.embedQuery(query), hybridVectorQuery(query), projection);
+            return counted("hybrid-search", toBookHits(rankFusion.fuse(List.of(lexical.join(), vector), hybridSize)));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } catch (IOException e) {
+            lexical.cancel(true);
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            lexical.cancel(true);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    // Both branches are non-blocking, so no thread waits for the slower one
+    public CompletableFuture<List<BookHit>> hybridSearchBooksAsync(String query, String fusion, SourceProjection projection) {
+        if (!asyncSearch) {
+            return CompletableFuture.completedFuture(hybridSearchBooks(query, fusion, projection));
+        }
+        RankFusion rankFusion = rankFusion(fusion);
+        CompletableFuture<List<VectorHit>> lexical = searchAsync("multi_match", lexicalRequest(query, hybridCandidates, projection))
+            .thenApply(BookSearchService::toHits);
+        CompletableFuture<List<VectorHit>> vector = embeddingService.embedQueryAsync(query)
+            .thenCompose(embedding -> searchVectorsAsync(embedding, hybridVectorQuery(query), projection));
+        return lexical.thenCombine(vector, (lexicalHits, vectorHits) ->
+            counted("hybrid-search", toBookHits(rankFusion.fuse(List.of(lexicalHits, vectorHits), hybridSize))));
+    }
+
+    private VectorQuery hybridVectorQuery(String query) {
+        return new VectorQuery(query, BookFilter.NONE, hybridCandidates,
+            Math.max(hybridCandidates, vectorNumCandidates), hybridCandidates);
+    }
+
+    private RankFusion rankFusion(String fusion) {
+        RankFusion.Method method;
+        try {
+            method = RankFusion.Method.fromConfig(fusion != null ? fusion : hybridFusion);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid fusion. Use 'rrf' or 'weighted'.");
+        }
+        return new RankFusion(method, new double[] {hybridLexicalWeight, hybridVectorWeight}, hybridRankConstant);
+    }
+
+    private List<VectorHit> lexicalSearch(String query, int size, SourceProjection projection) throws IOException {
+        SearchRequest request = lexicalRequest(query, size, projection);
+        return toHits(metrics.observe(BookMetrics.OPENSEARCH, "multi_match", () -> client.search(request, RequestOptions.DEFAULT)));
+    }
+
+    private SearchRequest lexicalRequest(String query, int size, SourceProjection projection) {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(QueryBuilders.multiMatchQuery(query, SEARCHABLE_FIELDS));
+        searchSourceBuilder.size(size);
+        searchSourceBuilder.fetchSource(projection.fetchSource());
+        SearchRequest searchRequest = new SearchRequest(index);
+        searchRequest.source(searchSourceBuilder);
+        return searchRequest;
+    }
+
+    static List<VectorHit> toHits(SearchResponse searchResponse) {
+        List<VectorHit> hits = new ArrayList<>();
+        for (SearchHit hit : searchResponse.getHits().getHits()) {
+            hits.add(new VectorHit(hit.getId(), hit.getScore(), hit.getSourceAsString()));
+        }
+        return hits;
+    }
+
+    static List<BookHit> toBookHits(List<VectorHit> hits) {
+        List<BookHit> books = new ArrayList<>(hits.size());
+        for (VectorHit hit : hits) {
+            books.add(new BookHit(hit.id(), hit.score(), hit.source()));
+        }
+        return books;
+    }
+
+    private CompletableFuture<SearchResponse> searchAsync(String operation, SearchRequest searchRequest) {
+        return metrics.observeAsync(BookMetrics.OPENSEARCH, operation, () -> {
+            CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+            client.searchAsync(searchRequest, RequestOptions.DEFAULT,
+                ActionListener.wrap(future::complete, future::completeExceptionally));
+            return future;
+        });
+    }
+
+    private List<BookHit> counted(String endpoint, List<BookHit> hits) {
+        metrics.searchResults(endpoint, hits.size());
+        return hits;
+    }
+
+    private static String causeMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    // Unset k, numCandidates and size fall back to books.search.vector.*; size defaults to k
+    public VectorQuery vectorQuery(String text, BookFilter filter, Integer k, Integer numCandidates, Integer size) {
+        int neighbours = k != null ? k : vectorK;
+        int candidates = numCandidates != null ? numCandidates : Math.max(vectorNumCandidates, neighbours);
+        return new VectorQuery(text, filter, neighbours, candidates, size != null ? size : neighbours);
+    }
+
+    public List<BookHit> vectorSearchBooks(VectorQuery query, SourceProjection projection) {
+        String cacheKey = projection.key() + '\u0000' + query;
+        List<BookHit> cached = vectorResultCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            // Identical concurrent queries share one embed + search round trip
+            return vectorSearchFlight.execute(cacheKey, () -> {
+                float[] embedding = embeddingService.embedQuery(query.text());
+                List<BookHit> hits = List.copyOf(toBookHits(searchVectors(embedding, query, projection)));
+                vectorResultCache.put(cacheKey, hits);
+                return counted("vector-search", hits);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    public CompletableFuture<List<BookHit>> vectorSearchBooksAsync(VectorQuery query, SourceProjection projection) {
+        if (!asyncSearch) {
+            return CompletableFuture.completedFuture(vectorSearchBooks(query, projection));
+        }
+        String cacheKey = projection.key() + '\u0000' + query;
+        List<BookHit> cached = vectorResultCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return vectorSearchFlight.executeAsync(cacheKey, () -> embeddingService.embedQueryAsync(query.text())
+            .thenCompose(embedding -> searchVectorsAsync(embedding, query, projection))
+            .thenApply(found -> {
+                List<BookHit> hits = List.copyOf(toBookHits(found));
+                vectorResultCache.put(cacheKey, hits);
+                return counted("vector-search", hits);
+            }));
+    }
+
+    // OpenSearch kNN by default; the local index serves reads when selected and
+    // takes over when the cluster is unreachable, in both cases only once it is fully loaded
+    private List<VectorHit> searchVectors(float[] vector, VectorQuery query, SourceProjection projection) throws IOException {
+        InMemoryVectorIndex local = localIndex != null ? localIndex.serving() : null;
+        if (local != null && "local".equals(vectorSearchEngine)) {
+            return localSearch(local, vector, query, projection);
+        }
+        JsonNode filter = query.filter().toQuery(mapper);
+        try {
+            if (localIndex == null) {
+                return metrics.observe(BookMetrics.OPENSEARCH, "knn", () -> openSearchEngine.search(vector,
+                    query.k(), query.numCandidates(), query.size(), filter, projection.fetchSource()));
+            }
+            // Read-through stores the full document and its vector, so fetch both and project afterwards
+            List<VectorHit> hits = metrics.observe(BookMetrics.OPENSEARCH, "knn", () -> openSearchEngine.search(vector,
+                query.k(), query.numCandidates(), query.size(), filter, FetchSourceContext.FETCH_SOURCE));
+            readThrough(hits);
+            return project(hits, projection);
+        } catch (IOException e) {
+            if (local != null) {
+                log.warn("OpenSearch kNN failed, serving from local index: {}", e.getMessage());
+                return localSearch(local, vector, query, projection);
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<List<VectorHit>> searchVectorsAsync(float[] vector, VectorQuery query, SourceProjection projection) {
+        InMemoryVectorIndex local = localIndex != null ? localIndex.serving() : null;
+        try {
+            if (local != null && "local".equals(vectorSearchEngine)) {
+                return CompletableFuture.completedFuture(localSearch(local, vector, query, projection));
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        JsonNode filter = query.filter().toQuery(mapper);
+        if (localIndex == null) {
+            return metrics.observeAsync(BookMetrics.OPENSEARCH, "knn", () -> openSearchEngine.searchAsync(vector,
+                query.k(), query.numCandidates(), query.size(), filter, projection.fetchSource()));
+        }
+        return metrics.observeAsync(BookMetrics.OPENSEARCH, "knn", () -> openSearchEngine.searchAsync(vector,
+                query.k(), query.numCandidates(), query.size(), filter, FetchSourceContext.FETCH_SOURCE)).handle((found, error) -> {
+            try {
+                if (error == null) {
+                    readThrough(found);
+                    return project(found, projection);
+                }
+                if (local != null) {
+                    log.warn("OpenSearch kNN failed, serving from local index: {}", causeMessage(error));
+                    return localSearch(local, vector, query, projection);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            throw new CompletionException(error);
+        });
+    }
+
+    // The in-process index keeps no field index, so filters are checked against the sources of
+    // the numCandidates nearest vectors; selective filters can return fewer than size hits
+    private List<VectorHit> localSearch(InMemoryVectorIndex local, float[] vector, VectorQuery query,
+                                        SourceProjection projection) throws IOException {
+        if (query.filter().isEmpty()) {
+            return project(local.search(vector, query.size()), projection);
+        }
+        List<VectorHit> matching = new ArrayList<>(query.size());
+        for (VectorHit hit : local.search(vector, query.numCandidates())) {
+            if (hit.source() != null && query.filter().matches(mapper.readTree(hit.source()))) {
+                matching.add(hit);
+                if (matching.size() == query.size()) break;
+            }
+        }
+        return project(matching, projection);
+    }
+
+    private List<VectorHit> project(List<VectorHit> hits, SourceProjection projection) throws IOException {
+        List<VectorHit> projected = new ArrayList<>(hits.size());
+        for (VectorHit hit : hits) {
+            projected.add(new VectorHit(hit.id(), hit.score(), projection.apply(mapper, hit.source())));
+        }
+        return projected;
+    }
+
+    private void readThrough(List<VectorHit> hits) throws IOException {
+        for (VectorHit hit : hits) {
+            books.localEntry(hit.id(), hit.source(), localIndex::put);
+        }
+    }
+
+    public Map<String, Object> vectorSearchCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queryEmbeddings", embeddingService.queryCacheStats());
+        stats.put("resultEntries", vectorResultCache.estimatedSize());
+        stats.put("coalescedRequests", vectorSearchFlight.coalesced());
+        stats.put("localIndexEntries", localIndex != null ? localIndex.size() : 0);
+        stats.put("localIndexLoaded", localIndex != null && localIndex.serving() != null);
+        return stats;
+    }
+
+    private boolean isSearchableField(String field) {
+        for (String f : SEARCHABLE_FIELDS) {
+            if (f.equals(field)) return true;
+        }
+        return false;
+    }
+}
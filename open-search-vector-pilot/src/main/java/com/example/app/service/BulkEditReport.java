@@ -0,0 +1,14 @@
+package com.example.app.service;
+
+import java.util.List;
+
+/**
+ * Response of the bulk update and delete endpoints: totals plus one status
+ * per input line, in input order.
+ */
+public record BulkEditReport(int total, int succeeded, int failed, int reembedded, List<BulkItemStatus> items) {
+    public static BulkEditReport of(List<BulkItemStatus> items, int reembedded) {
+        int succeeded = (int) items.stream().filter(BulkItemStatus::succeeded).count();
+        return new BulkEditReport(items.size(), succeeded, items.size() - succeeded, reembedded, List.copyOf(items));
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.app.service;
+
+import com.example.app.metrics.BookMetrics;
+import com.example.app.opensearch.IndexLifecycle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.delete.DeleteRequest;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.get.MultiGetItemResponse;
+import org.opensearch.action.get.MultiGetRequest;
+import org.opensearch.action.get.MultiGetResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+import org.opensearch.index.reindex.DeleteByQueryRequest;
+import org.opensearch.index.reindex.UpdateByQueryRequest;
+import org.opensearch.script.Script;
+import org.opensearch.script.ScriptType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Many-document edits: NDJSON bulk updates and deletes parsed by
+ * {@link BulkEdits}, and update/delete by query for a {@link BookFilter}.
+ */
+@Service
+public class BulkEditService {
+    private final RestHighLevelClient client;
+    @Autowired
+    private BookMetrics metrics;
+    @Autowired
+    private BookIndex books;
+    @Autowired
+    private BookEmbedder embedder;
+    @Value("${books.bulk-edit.max-items:10000}")
+    private int bulkEditMaxItems;
+    @Value("${books.ingest.bulk-max-docs:500}")
+    private int bulkMaxDocs;
+
+    private ObjectMapper mapper;
+    private String index;
+    private IndexLifecycle indexLifecycle;
+    private LocalBookIndex localIndex;
+
+    // Shared pooled client from OpenSearchClientConfig
+    public BulkEditService(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void init() {
+        mapper = books.mapper();
+        index = books.alias();
+        indexLifecycle = books.lifecycle();
+        localIndex = books.local();
+    }
+
+    // NDJSON of {"id":..,"doc":{..}}: one multi-get for the stored text, one batched embedding call
+    // for the docs whose text changed, then bulk requests of at most bulk-max-docs updates
+    public BulkEditReport bulkUpdate(String ndjson) {
+        List<BulkEdits.Line> lines = BulkEdits.parse(mapper, ndjson, true, bulkEditMaxItems);
+        try {
+            MultiGetRequest textRequest = new MultiGetRequest();
+            for (BulkEdits.Line line : lines) {
+                if (line.valid() && BookDocuments.hasEmbeddingText(line.doc())) {
+                    textRequest.add(new MultiGetRequest.Item(index, line.id()).fetchSourceContext(BookEmbedder.TEXT_SOURCE));
+                }
+            }
+            Map<Integer, GetResponse> stored = new HashMap<>();
+            if (!textRequest.getItems().isEmpty()) {
+                MultiGetResponse response = metrics.observe(BookMetrics.OPENSEARCH, "mget",
+                    () -> client.mget(textRequest, RequestOptions.DEFAULT));
+                Iterator<MultiGetItemResponse> items = response.iterator();
+                for (BulkEdits.Line line : lines) {
+                    if (line.valid() && BookDocuments.hasEmbeddingText(line.doc())) {
+                        // A failed item has no response; the doc is then re-embedded without a version check
+                        GetResponse item = items.next().getResponse();
+                        if (item != null) stored.put(line.number(), item);
+                    }
+                }
+            }
+            Map<Integer, ObjectNode> texts = new LinkedHashMap<>();
+            for (BulkEdits.Line line : lines) {
+                if (line.valid() && BookDocuments.hasEmbeddingText(line.doc())) {
+                    ObjectNode text = embedder.changedText(line.doc(), stored.get(line.number()));
+                    if (text != null) texts.put(line.number(), text);
+                }
+            }
+            List<BookEmbedder.DocVectors> vectors = embedder.embed(new ArrayList<>(texts.values()));
+            Map<Integer, BookEmbedder.DocVectors> embeddings = new HashMap<>();
+            int next = 0;
+            for (Integer number : texts.keySet()) {
+                embeddings.put(number, vectors.get(next++));
+            }
+            List<BulkEdits.Line> sent = new ArrayList<>();
+            BulkRequest bulk = new BulkRequest();
+            for (BulkEdits.Line line : lines) {
+                if (!line.valid()) continue;
+                sent.add(line);
+                int number = line.number();
+                bulk.add(embedder.updateRequest(line.id(), line.doc(), stored.get(number), texts.get(number),
+                    embeddings.get(number)));
+            }
+            for (BulkEdits.Line line : sent) {
+                BookEmbedder.DocVectors lineVectors = embeddings.get(line.number());
+                if (lineVectors != null && !lineVectors.complete()) embedder.defer(line.id());
+            }
+            return BulkEditReport.of(sendBulk(lines, sent, bulk), texts.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // NDJSON of {"id":..}; ids that do not exist come back as 404 not_found
+    public BulkEditReport bulkDelete(String ndjson) {
+        List<BulkEdits.Line> lines = BulkEdits.parse(mapper, ndjson, false, bulkEditMaxItems);
+        List<BulkEdits.Line> sent = new ArrayList<>();
+        BulkRequest bulk = new BulkRequest();
+        for (BulkEdits.Line line : lines) {
+            if (!line.valid()) continue;
+            sent.add(line);
+            bulk.add(new DeleteRequest(index, line.id()));
+        }
+        try {
+            return BulkEditReport.of(sendBulk(lines, sent, bulk), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Splits into bulk-max-docs requests; statuses come back in input order, invalid lines as 400s
+    private List<BulkItemStatus> sendBulk(List<BulkEdits.Line> lines, List<BulkEdits.Line> sent, BulkRequest bulk)
+            throws IOException {
+        Map<Integer, BulkItemStatus> results = new HashMap<>();
+        List<DocWriteRequest<?>> requests = bulk.requests();
+        for (int from = 0; from < requests.size(); from += bulkMaxDocs) {
+            int to = Math.min(requests.size(), from + bulkMaxDocs);
+            BulkRequest chunk = new BulkRequest();
+            requests.subList(from, to).forEach(chunk::add);
+            BulkResponse response = indexLifecycle.write(() -> metrics.observe(BookMetrics.OPENSEARCH, "bulk",
+                () -> client.bulk(chunk, RequestOptions.DEFAULT)));
+            BulkItemResponse[] items = response.getItems();
+            for (int i = 0; i < items.length; i++) {
+                BulkEdits.Line line = sent.get(from + i);
+                results.put(line.number(), BulkEdits.status(line, items[i]));
+                if (localIndex != null && !items[i].isFailed()) {
+                    localIndex.remove(line.id());
+                }
+            }
+        }
+        List<BulkItemStatus> statuses = new ArrayList<>(lines.size());
+        for (BulkEdits.Line line : lines) {
+            statuses.add(line.valid() ? results.get(line.number()) : line.rejected());
+        }
+        return statuses;
+    }
+
+    // A filter is required so a missing parameter cannot empty the index
+    public Map<String, Object> deleteByQuery(BookFilter filter) {
+        DeleteByQueryRequest request = new DeleteByQueryRequest(index)
+            .setQuery(filterQuery(filter))
+            .setConflicts("proceed")
+            .setRefresh(true);
+        try {
+            BulkByScrollResponse response = indexLifecycle.write(() -> metrics.observe(BookMetrics.OPENSEARCH,
+                "delete_by_query", () -> client.deleteByQuery(request, RequestOptions.DEFAULT)));
+            forgetLocal(filter);
+            return byQueryResult(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Sets metadata fields on every matching doc inside OpenSearch; text fields need new embeddings,
+    // so they are rejected here and go through bulkUpdate instead
+    public Map<String, Object> updateByQuery(BookFilter filter, String json) {
+        try {
+            ObjectNode doc = BulkEdits.fieldUpdate(mapper.readTree(json));
+            UpdateByQueryRequest request = new UpdateByQueryRequest(index)
+                .setQuery(filterQuery(filter))
+                .setScript(new Script(ScriptType.INLINE, "painless",
+                    "for (def field : params.doc.entrySet()) { ctx._source[field.getKey()] = field.getValue(); }",
+                    Map.of("doc", mapper.convertValue(doc, Map.class))))
+                .setConflicts("proceed")
+                .setRefresh(true);
+            BulkByScrollResponse response = indexLifecycle.write(() -> metrics.observe(BookMetrics.OPENSEARCH,
+                "update_by_query", () -> client.updateByQuery(request, RequestOptions.DEFAULT)));
+            forgetLocal(filter);
+            return byQueryResult(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private QueryBuilder filterQuery(BookFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("At least one filter (language, format, publisher, rating) is required.");
+        }
+        return QueryBuilders.wrapperQuery(filter.toQuery(mapper).toString());
+    }
+
+    // Matching local entries are dropped; the next search reads them through again
+    private void forgetLocal(BookFilter filter) {
+        if (localIndex == null) return;
+        localIndex.removeIf(source -> {
+            try {
+                return source == null || filter.matches(mapper.readTree(source));
+            } catch (IOException e) {
+                return true;
+            }
+        });
+    }
+
+    private static Map<String, Object> byQueryResult(BulkByScrollResponse response) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tookMillis", response.getTook().millis());
+        result.put("total", response.getTotal());
+        result.put("updated", response.getUpdated());
+        result.put("deleted", response.getDeleted());
+        result.put("versionConflicts", response.getVersionConflicts());
+        List<String> failures = new ArrayList<>();
+        response.getBulkFailures().forEach(f -> failures.add(f.getId() + ": " + f.getMessage()));
+        response.getSearchFailures().forEach(f -> failures.add(f.getReason().getMessage()));
+        result.put("failures", failures.size() > 100 ? failures.subList(0, 100) : failures);
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import org.opensearch.action.bulk.BulkItemResponse;
+
+/**
+ * Parsing and result mapping for the NDJSON bulk endpoints. Update lines are
+ * {@code {"id":"42","doc":{...}}} with a partial document, delete lines are
+ * {@code {"id":"42"}}. A malformed line becomes a 400 item instead of failing
+ * the whole request.
+ */
+public final class BulkEdits {
+    private BulkEdits() {
+    }
+
+    // One non-blank input line; error is set when it could not be parsed and doc is null for deletes
+    public record Line(int number, String id, ObjectNode doc, String error) {
+        public boolean valid() {
+            return error == null;
+        }
+
+        public BulkItemStatus rejected() {
+            return new BulkItemStatus(number, id, 400, null, error);
+        }
+    }
+
+    public static List<Line> parse(ObjectMapper mapper, String ndjson, boolean withDoc, int maxItems) {
+        List<Line> lines = new ArrayList<>();
+        String[] rows = ndjson == null ? new String[0] : ndjson.split("\r?\n");
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i].isBlank()) continue;
+            if (lines.size() == maxItems) {
+                throw new IllegalArgumentException("At most " + maxItems + " lines per bulk request.");
+            }
+            lines.add(parseLine(mapper, rows[i], i + 1, withDoc));
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Bulk request body is empty.");
+        }
+        return lines;
+    }
+
+    private static Line parseLine(ObjectMapper mapper, String row, int number, boolean withDoc) {
+        JsonNode node;
+        try {
+            node = mapper.readTree(row);
+        } catch (JsonProcessingException e) {
+            return new Line(number, null, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        JsonNode id = node.path("id");
+        if (!id.isTextual() && !id.isIntegralNumber() || id.asText().isBlank()) {
+            return new Line(number, null, null, "Missing \"id\".");
+        }
+        if (!withDoc) {
+            return new Line(number, id.asText(), null, null);
+        }
+        JsonNode doc = node.get("doc");
+        if (!(doc instanceof ObjectNode) || doc.isEmpty()) {
+            return new Line(number, id.asText(), null, "Missing \"doc\" object.");
+        }
+        ((ObjectNode) doc).remove(BookDocuments.TEXT_HASH_FIELD);
+        return new Line(number, id.asText(), (ObjectNode) doc, null);
+    }
+
+    // update_by_query runs a script inside OpenSearch, which cannot compute embeddings
+    public static ObjectNode fieldUpdate(JsonNode doc) {
+        if (!(doc instanceof ObjectNode) || doc.isEmpty()) {
+            throw new IllegalArgumentException("Update body must be a non-empty JSON object.");
+        }
+        if (BookDocuments.hasEmbeddingText(doc)) {
+            throw new IllegalArgumentException("Fields " + BookDocuments.TEXT_FIELDS
+                + " change the embedding; use the bulk update endpoint for them.");
+        }
+        if (doc.has("embedding") || doc.has(BookDocuments.CHUNKS_FIELD) || doc.has(BookDocuments.TEXT_HASH_FIELD)) {
+            throw new IllegalArgumentException("The embedding fields cannot be updated by query.");
+        }
+        return (ObjectNode) doc;
+    }
+
+    public static BulkItemStatus status(Line line, BulkItemResponse item) {
+        if (item.isFailed()) {
+            return new BulkItemStatus(line.number(), line.id(), item.status().getStatus(), null, item.getFailureMessage());
+        }
+        return new BulkItemStatus(line.number(), line.id(), item.status().getStatus(),
+            item.getResponse().getResult().getLowercase(), null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one line of a bulk update or delete. The status is the HTTP
+ * status OpenSearch reported for the item (400 for lines that were never
+ * sent); result is OpenSearch's {@code updated}, {@code noop},
+ * {@code deleted} or {@code not_found}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemStatus(int line, String id, int status, String result, String error) {
+    public boolean succeeded() {
+        return status < 300;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Opaque resume token for exports: the sort values of the last document
+ * written, as base64url JSON. Sorting is deterministic, so the token still
+ * works after the point in time that produced it has expired.
+ */
+public final class ExportCursor {
+    private ExportCursor() {
+    }
+
+    public static String encode(ObjectMapper mapper, Object[] sortValues) throws IOException {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mapper.writeValueAsBytes(sortValues));
+    }
+
+    public static Object[] decode(ObjectMapper mapper, String token) {
+        try {
+            Object[] sortValues = mapper.readValue(Base64.getUrlDecoder().decode(token), Object[].class);
+            if (sortValues.length == 0) throw new IllegalArgumentException("Empty cursor");
+            return sortValues;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.app.service;
+
+import com.example.app.search.InMemoryVectorIndex;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process copy of the vectors behind the alias. It is bulk-loaded in the
+ * background from a point in time of the alias and serves searches only once
+ * that load has finished, so it never answers from a partial index. Writes
+ * made while it loads are applied right away and win over the older snapshot.
+ */
+public class LocalBookIndex implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LocalBookIndex.class);
+    private static final long RETRY_SECONDS = 30;
+
+    @FunctionalInterface
+    public interface Loader {
+        // Hands every live document with a vector to the sink
+        void load(Sink sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void put(String id, float[] vector, String source);
+    }
+
+    private final Supplier<InMemoryVectorIndex> factory;
+    private final Loader loader;
+    private final ScheduledExecutorService executor;
+    private final Object lock = new Object();
+    // The index being loaded or served; writes always go here
+    private InMemoryVectorIndex engine;
+    // Same as engine once the load has finished, null before
+    private volatile InMemoryVectorIndex serving;
+    // While a load runs: ids written since it started, and whether a by-query removal happened
+    // that the snapshot could undo
+    private Set<String> touched = new HashSet<>();
+    private boolean stale;
+    private long generation;
+
+    public LocalBookIndex(Supplier<InMemoryVectorIndex> factory, Loader loader) {
+        this.factory = factory;
+        this.loader = loader;
+        this.engine = factory.get();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "local-index-load");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Drops every entry and loads the alias again; searches go to OpenSearch until it is done
+    public void reload() {
+        long load;
+        synchronized (lock) {
+            serving = null;
+            engine = factory.get();
+            touched = new HashSet<>();
+            stale = false;
+            load = ++generation;
+        }
+        executor.execute(() -> load(load));
+    }
+
+    // Null until loaded
+    public InMemoryVectorIndex serving() {
+        return serving;
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return engine.size();
+        }
+    }
+
+    public void put(String id, float[] vector, String source) {
+        synchronized (lock) {
+            engine.put(id, vector, source);
+            if (serving == null) touched.add(id);
+        }
+    }
+
+    public void remove(String id) {
+        synchronized (lock) {
+            engine.remove(id);
+            if (serving == null) touched.add(id);
+        }
+    }
+
+    public int removeIf(Predicate<String> source) {
+        synchronized (lock) {
+            if (serving == null) stale = true;
+            return engine.removeIf(source);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void load(long load) {
+        InMemoryVectorIndex target;
+        synchronized (lock) {
+            if (load != generation) return;
+            target = engine;
+        }
+        try {
+            loader.load((id, vector, source) -> {
+                synchronized (lock) {
+                    if (load != generation) throw new CancellationException();
+                    if (!touched.contains(id)) target.put(id, vector, source);
+                }
+            });
+            synchronized (lock) {
+                if (load != generation) return;
+                if (stale) {
+                    // A by-query delete or update may have hit documents the snapshot still holds
+                    reload();
+                    return;
+                }
+                touched = new HashSet<>();
+                serving = target;
+            }
+            log.info("Local vector index loaded with {} documents", target.size());
+        } catch (CancellationException e) {
+            // A newer load replaced this one
+        } catch (IOException | RuntimeException e) {
+            log.warn("Loading the local vector index failed, retrying in {}s: {}", RETRY_SECONDS, e.getMessage());
+            executor.schedule(() -> {
+                synchronized (lock) {
+                    if (load != generation) return;
+                }
+                reload();
+            }, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Arrays;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * Which {@code _source} fields a response carries. The embedding and chunk
+ * vectors are always excluded unless the caller opts in with
+ * {@code includeVector} or names the embedding in the field list, since they
+ * are most of the bytes of every document.
+ */
+public final class SourceProjection {
+    static final String VECTOR_FIELD = "embedding";
+    private static final String[] VECTOR_FIELDS = {VECTOR_FIELD, BookDocuments.CHUNKS_FIELD};
+
+    private final String[] includes; // null means every field
+    private final String[] excludes;
+
+    private SourceProjection(String[] includes, String[] excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    // fields overrides the endpoint default; both are comma-separated and blank means all fields
+    public static SourceProjection of(String fields, boolean includeVector, String defaultFields) {
+        String[] includes = split(fields != null && !fields.isBlank() ? fields : defaultFields);
+        boolean vector = includeVector || (includes != null && Arrays.asList(includes).contains(VECTOR_FIELD));
+        if (vector && includes != null && !Arrays.asList(includes).contains(VECTOR_FIELD)) {
+            includes = Arrays.copyOf(includes, includes.length + 1);
+            includes[includes.length - 1] = VECTOR_FIELD;
+        }
+        return new SourceProjection(includes, vector ? new String[0] : VECTOR_FIELDS.clone());
+    }
+
+    public boolean includesVector() {
+        return excludes.length == 0;
+    }
+
+    public FetchSourceContext fetchSource() {
+        return new FetchSourceContext(true, includes, excludes);
+    }
+
+    // Client-side equivalent of fetchSource() for sources that did not come from OpenSearch
+    public String apply(ObjectMapper mapper, String source) throws IOException {
+        if (source == null) return null;
+        JsonNode node = mapper.readTree(source);
+        if (!(node instanceof ObjectNode)) return source;
+        ObjectNode object = (ObjectNode) node;
+        if (includes != null) object.retain(includes);
+        object.remove(Arrays.asList(excludes));
+        return mapper.writeValueAsString(object);
+    }
+
+    public String key() {
+        return Arrays.toString(includes) + Arrays.toString(excludes);
+    }
+
+    private static String[] split(String fields) {
+        if (fields == null || fields.isBlank()) return null;
+        return Arrays.stream(fields.split(",")).map(String::trim).filter(f -> !f.isEmpty()).toArray(String[]::new);
+    }
+}
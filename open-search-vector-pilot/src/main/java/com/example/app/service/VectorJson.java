@@ -0,0 +1,143 @@
+package com.example.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes vectors straight from {@code float[]} into request bodies with a
+ * streaming generator, so no boxed {@code Float}s or intermediate JSON trees
+ * are built per document or per query.
+ */
+public final class VectorJson {
+    private VectorJson() {
+    }
+
+    // Document source with the embedding field set (replacing any existing one) unless the vector is empty
+    public static byte[] withEmbedding(ObjectMapper mapper, JsonNode doc, float[] vector) throws IOException {
+        return withEmbedding(mapper, doc, vector, null);
+    }
+
+    // Also writes "chunks":[{"vector":[...]},...] when chunk vectors are given
+    public static byte[] withEmbedding(ObjectMapper mapper, JsonNode doc, float[] vector, List<float[]> chunks)
+            throws IOException {
+        // Each float needs at most ~16 chars of JSON
+        int floats = vector.length;
+        if (chunks != null) {
+            for (float[] chunk : chunks) floats += chunk.length;
+        }
+        try (ByteArrayBuilder out = new ByteArrayBuilder(floats * 16 + 1024);
+             JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = doc.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().equals("embedding")) continue;
+                if (chunks != null && field.getKey().equals(BookDocuments.CHUNKS_FIELD)) continue;
+                gen.writeFieldName(field.getKey());
+                mapper.writeTree(gen, field.getValue());
+            }
+            // A failed embedding is left out: knn_vector rejects [] and a partial update keeps the stored vector
+            if (vector.length > 0) {
+                gen.writeFieldName("embedding");
+                writeVector(gen, vector);
+            }
+            if (chunks != null && !chunks.isEmpty()) {
+                gen.writeArrayFieldStart(BookDocuments.CHUNKS_FIELD);
+                for (float[] chunk : chunks) {
+                    gen.writeStartObject();
+                    gen.writeFieldName("vector");
+                    writeVector(gen, chunk);
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+            gen.flush();
+            return out.toByteArray();
+        }
+    }
+
+    // {"knn":{"embedding":{"vector":[...],"k":k}}}
+    public static byte[] knnQuery(ObjectMapper mapper, float[] vector, int k) throws IOException {
+        return knnQuery(mapper, vector, k, 0, null);
+    }
+
+    // Adds "method_parameters":{"ef_search":numCandidates} when numCandidates > 0 and the
+    // filter inside the knn clause, so the graph search only visits matching documents
+    public static byte[] knnQuery(ObjectMapper mapper, float[] vector, int k, int numCandidates, JsonNode filter)
+            throws IOException {
+        try (ByteArrayBuilder out = new ByteArrayBuilder(vector.length * 16 + 512);
+             JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("knn");
+            gen.writeObjectFieldStart("embedding");
+            gen.writeFieldName("vector");
+            writeVector(gen, vector);
+            gen.writeNumberField("k", k);
+            if (numCandidates > 0) {
+                gen.writeObjectFieldStart("method_parameters");
+                gen.writeNumberField("ef_search", numCandidates);
+                gen.writeEndObject();
+            }
+            if (filter != null) {
+                gen.writeFieldName("filter");
+                mapper.writeTree(gen, filter);
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.flush();
+            return out.toByteArray();
+        }
+    }
+
+    // {"nested":{"path":"chunks","score_mode":..,"query":{"knn":{"chunks.vector":{..,"filter":..}}}}}.
+    // The book scores as the best (max) or mean (avg) of its matching chunks; the filter on book fields
+    // goes inside the knn clause, where the plugin applies it to the parent book during the graph search
+    public static byte[] nestedKnnQuery(ObjectMapper mapper, float[] vector, int k, int numCandidates, JsonNode filter,
+                                        String scoreMode) throws IOException {
+        try (ByteArrayBuilder out = new ByteArrayBuilder(vector.length * 16 + 512);
+             JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("nested");
+            gen.writeStringField("path", BookDocuments.CHUNKS_FIELD);
+            gen.writeStringField("score_mode", scoreMode);
+            gen.writeObjectFieldStart("query");
+            gen.writeObjectFieldStart("knn");
+            gen.writeObjectFieldStart(BookDocuments.CHUNKS_FIELD + ".vector");
+            gen.writeFieldName("vector");
+            writeVector(gen, vector);
+            gen.writeNumberField("k", k);
+            if (numCandidates > 0) {
+                gen.writeObjectFieldStart("method_parameters");
+                gen.writeNumberField("ef_search", numCandidates);
+                gen.writeEndObject();
+            }
+            if (filter != null) {
+                gen.writeFieldName("filter");
+                mapper.writeTree(gen, filter);
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.flush();
+            return out.toByteArray();
+        }
+    }
+
+    public static void writeVector(JsonGenerator gen, float[] vector) throws IOException {
+        gen.writeStartArray(vector, vector.length);
+        for (float v : vector) {
+            gen.writeNumber(v);
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.app.service;
+
+/**
+ * A kNN search for {@code text}: the {@code k} nearest neighbours per shard,
+ * found by exploring {@code numCandidates} graph candidates, of which the best
+ * {@code size} are returned. The filter is applied during the graph search.
+ */
+public record VectorQuery(String text, BookFilter filter, int k, int numCandidates, int size) {
+    static final int MAX_K = 10_000;
+
+    public VectorQuery {
+        filter = filter != null ? filter : BookFilter.NONE;
+        if (k < 1 || k > MAX_K) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_K + ".");
+        }
+        if (numCandidates < k || numCandidates > MAX_K) {
+            throw new IllegalArgumentException("numCandidates must be between k and " + MAX_K + ".");
+        }
+        if (size < 1 || size > k) {
+            throw new IllegalArgumentException("size must be between 1 and k.");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DiskEmbeddingStoreTest {
+
+    private static byte[] key(int i) {
+        byte[] key = new byte[32];
+        key[0] = (byte) i;
+        key[1] = (byte) (i >> 8);
+        return key;
+    }
+
+    @Test
+    public void survivesReopen(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("embeddings.bin");
+        // Enough entries to force the mapping to grow past its initial size
+        try (DiskEmbeddingStore store = new DiskEmbeddingStore(file, 64L * 1024 * 1024)) {
+            for (int i = 0; i < 1000; i++) {
+                float[] vector = new float[384];
+                vector[0] = i;
+                store.put(key(i), vector);
+            }
+        }
+        try (DiskEmbeddingStore store = new DiskEmbeddingStore(file, 64L * 1024 * 1024)) {
+            assertEquals(1000, store.size());
+            assertEquals(999f, store.get(key(999))[0]);
+            assertArrayEquals(new float[384], store.get(key(0)));
+            assertNull(store.get(key(1000)));
+        }
+    }
+
+    @Test
+    public void stopsPersistingWhenFull(@TempDir Path dir) throws IOException {
+        try (DiskEmbeddingStore store = new DiskEmbeddingStore(dir.resolve("small.bin"), 1024)) {
+            store.put(key(1), new float[100]);
+            store.put(key(2), new float[100]);
+            store.put(key(3), new float[100]);
+            assertEquals(2, store.size());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+public class EmbeddingBatcherTest {
+
+    @Test
+    public void splitsByBatchSizeAndKeepsOrder() {
+        FakeEmbeddingModel model = FakeEmbeddingModel.lengths(1);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) texts.add("x".repeat(i + 1));
+
+        List<float[]> vectors = new EmbeddingBatcher(model, 4, 10_000).embedAll(texts);
+
+        assertEquals(List.of(4, 4, 2), model.batchSizes);
+        assertEquals(10, vectors.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, vectors.get(i)[0]);
+        }
+    }
+
+    @Test
+    public void splitsByTokenBudget() {
+        FakeEmbeddingModel model = FakeEmbeddingModel.lengths(1);
+        // 40 chars ~ 10 tokens each; a budget of 25 tokens fits two per batch
+        List<String> texts = List.of("a".repeat(40), "b".repeat(40), "c".repeat(40), "d".repeat(200));
+
+        List<float[]> vectors = new EmbeddingBatcher(model, 100, 25).embedAll(texts);
+
+        // The oversized last text is sent on its own
+        assertEquals(List.of(2, 1, 1), model.batchSizes);
+        assertEquals(200, vectors.get(3)[0]);
+    }
+
+    @Test
+    public void rejectsMismatchedResponse() {
+        EmbeddingModel model = new FakeEmbeddingModel((text, call) -> new float[] {1}) {
+            @Override
+            public List<float[]> embed(List<String> texts) {
+                return List.of();
+            }
+        };
+
+        assertThrows(IllegalStateException.class,
+            () -> new EmbeddingBatcher(model, 4, 100).embedAll(List.of("a", "b")));
+    }
+}
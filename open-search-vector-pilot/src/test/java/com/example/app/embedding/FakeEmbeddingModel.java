@@ -0,0 +1,65 @@
+package com.example.app.embedding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Stand-in for the provider in tests. Each text's vector comes from a
+ * function of the text and the 1-based number of the call; the size and
+ * thread of every call are recorded.
+ */
+public class FakeEmbeddingModel implements EmbeddingModel {
+    @FunctionalInterface
+    public interface Vectors {
+        float[] of(String text, int call);
+    }
+
+    final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    final Set<String> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Vectors vectors;
+
+    public FakeEmbeddingModel(Vectors vectors) {
+        this.vectors = vectors;
+    }
+
+    // Vectors of the given size whose first component is the text length, so results match back to inputs
+    public static FakeEmbeddingModel lengths(int dims) {
+        return new FakeEmbeddingModel((text, call) -> {
+            float[] vector = new float[dims];
+            vector[0] = text.length();
+            return vector;
+        });
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        int call = calls.incrementAndGet();
+        List<String> texts = request.getInstructions();
+        batchSizes.add(texts.size());
+        threads.add(Thread.currentThread().getName());
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vectors.of(texts.get(i), call), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        throw new UnsupportedOperationException();
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+}
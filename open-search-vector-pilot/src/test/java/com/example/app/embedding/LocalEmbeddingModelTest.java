@@ -0,0 +1,40 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LocalEmbeddingModelTest {
+    @Test
+    public void splitsIntoSubBatchesAndKeepsInputOrder() {
+        FakeEmbeddingModel fake = FakeEmbeddingModel.lengths(4);
+        try (LocalEmbeddingModel model = new LocalEmbeddingModel(fake, "local:test", 4, 3, 2)) {
+            List<float[]> vectors = model.embed(List.of("a", "bb", "ccc", "dddd", "eeeee"));
+
+            assertEquals(5, vectors.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i + 1, vectors.get(i)[0]);
+            }
+            List<Integer> sizes = new ArrayList<>(fake.batchSizes);
+            Collections.sort(sizes);
+            assertEquals(List.of(1, 2, 2), sizes);
+            assertTrue(fake.threads.stream().allMatch(name -> name.startsWith("embedding-inference-")));
+        }
+    }
+
+    @Test
+    public void warmUpChecksTheConfiguredDimension() {
+        try (LocalEmbeddingModel model = new LocalEmbeddingModel(FakeEmbeddingModel.lengths(384), "local:test", 384, 1, 16)) {
+            model.warmUp();
+            assertEquals(384, model.dimensions());
+        }
+        try (LocalEmbeddingModel model = new LocalEmbeddingModel(FakeEmbeddingModel.lengths(384), "local:test", 1536, 1, 16)) {
+            assertThrows(IllegalStateException.class, model::warmUp);
+        }
+    }
+}
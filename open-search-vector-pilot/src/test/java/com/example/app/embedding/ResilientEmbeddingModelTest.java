@@ -0,0 +1,146 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class ResilientEmbeddingModelTest {
+    private static ResilienceSettings settings(long requestsPerMinute, int maxConcurrent, long timeoutMillis,
+                                               int failureThreshold, long hedgeDelayMillis) {
+        return new ResilienceSettings(requestsPerMinute, 0, 0, maxConcurrent, 0, timeoutMillis,
+            failureThreshold, 60_000, hedgeDelayMillis, 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void hedgesASlowQueryAndTakesTheFirstAnswer() {
+        CountDownLatch slow = new CountDownLatch(1);
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> {
+            if (attempt == 1) await(slow);
+            return new float[] {attempt};
+        });
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, settings(0, 4, 5000, 5, 50))) {
+            assertArrayEquals(new float[] {2}, model.embed("hobbit"));
+
+            ResilientEmbeddingModel.Stats stats = model.stats();
+            assertEquals(1, stats.hedges());
+            assertEquals(1, stats.hedgeWins());
+        } finally {
+            slow.countDown();
+        }
+    }
+
+    @Test
+    public void doesNotHedgeBatches() {
+        CountDownLatch slow = new CountDownLatch(1);
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> {
+            await(slow);
+            return new float[] {attempt};
+        });
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, settings(0, 4, 5000, 5, 10))) {
+            new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                slow.countDown();
+            }).start();
+
+            assertEquals(2, model.embed(List.of("a", "b")).size());
+            assertEquals(1, delegate.calls());
+            assertEquals(0, model.stats().hedges());
+        }
+    }
+
+    @Test
+    public void failsFastOnceTheCircuitOpens() {
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> {
+            throw new IllegalStateException("provider down");
+        });
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, 1000, now::get);
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, settings(0, 4, 5000, 2, 0), breaker)) {
+            assertThrows(IllegalStateException.class, () -> model.embed("a"));
+            assertThrows(IllegalStateException.class, () -> model.embed("a"));
+
+            EmbeddingUnavailableException e = assertThrows(EmbeddingUnavailableException.class, () -> model.embed("a"));
+            assertEquals(1000, e.retryAfterMillis());
+            assertEquals(2, delegate.calls());
+            assertEquals(CircuitBreaker.State.OPEN, model.circuitState());
+            assertEquals(1, model.stats().circuitOpen());
+
+            // The half-open trial fails and opens the circuit again
+            now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            assertThrows(IllegalStateException.class, () -> model.embed("a"));
+            assertEquals(3, delegate.calls());
+            assertEquals(CircuitBreaker.State.OPEN, model.circuitState());
+        }
+    }
+
+    @Test
+    public void timesOutWhileTheCallKeepsItsBulkheadSlot() {
+        CountDownLatch stuck = new CountDownLatch(1);
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> {
+            await(stuck);
+            return new float[] {attempt};
+        });
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, settings(0, 1, 100, 5, 0))) {
+            assertThrows(EmbeddingUnavailableException.class, () -> model.embed("a"));
+            assertThrows(EmbeddingUnavailableException.class, () -> model.embed("b"));
+
+            ResilientEmbeddingModel.Stats stats = model.stats();
+            assertEquals(1, stats.timeouts());
+            assertEquals(1, stats.bulkheadFull());
+            assertEquals(1, delegate.calls());
+            assertEquals("CLOSED", stats.circuit());
+        } finally {
+            stuck.countDown();
+        }
+    }
+
+    @Test
+    public void rateLimitRejectionsLeaveTheCircuitClosed() {
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> new float[] {attempt});
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, settings(1, 4, 5000, 1, 0))) {
+            model.embed("a");
+            for (int i = 0; i < 3; i++) {
+                assertThrows(EmbeddingUnavailableException.class, () -> model.embed("b"));
+            }
+
+            assertEquals(1, delegate.calls());
+            assertEquals(3, model.stats().rateLimited());
+            assertEquals(CircuitBreaker.State.CLOSED, model.circuitState());
+        }
+    }
+
+    @Test
+    public void callsTurnedAwayByTheTokenBudgetKeepTheirRequestQuota() throws InterruptedException {
+        FakeEmbeddingModel delegate = new FakeEmbeddingModel((text, attempt) -> new float[] {attempt});
+        // Two requests and 100 tokens up front; tokens come back at 10 a second, requests at one per 5 s
+        ResilienceSettings limits = new ResilienceSettings(12, 600, 0, 4, 0, 5000, 5, 60_000, 0, 1);
+        try (ResilientEmbeddingModel model = new ResilientEmbeddingModel(delegate, limits)) {
+            String longText = "x".repeat(400);
+            model.embed(longText);
+            assertThrows(EmbeddingUnavailableException.class, () -> model.embed(longText));
+
+            Thread.sleep(300);
+            // Still has the request token the rejected call reserved
+            model.embed("b");
+            assertEquals(2, delegate.calls());
+            assertEquals(1, model.stats().rateLimited());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TextChunkerTest {
+
+    @Test
+    public void shortTextIsOneWindow() {
+        TextChunker chunker = new TextChunker(5, 2, 10);
+
+        assertEquals(List.of("a b c"), chunker.windows("  a b\n c "));
+        assertEquals(List.of(), chunker.windows(" "));
+    }
+
+    @Test
+    public void windowsOverlapAndCoverTheText() {
+        TextChunker chunker = new TextChunker(4, 1, 10);
+
+        List<String> windows = chunker.windows("1 2 3 4 5 6 7 8 9 10");
+
+        assertEquals(List.of("1 2 3 4", "4 5 6 7", "7 8 9 10"), windows);
+    }
+
+    @Test
+    public void stopsAtMaxChunks() {
+        TextChunker chunker = new TextChunker(2, 0, 2);
+
+        assertEquals(List.of("1 2", "3 4"), chunker.windows("1 2 3 4 5 6"));
+    }
+
+    @Test
+    public void rejectsOverlapAsLargeAsTheWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(4, 4, 10));
+    }
+}
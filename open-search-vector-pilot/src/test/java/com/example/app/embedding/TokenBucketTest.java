@@ -0,0 +1,60 @@
+package com.example.app.embedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void servesTheBurstThenPacesAtTheRate() {
+        // 60 a minute: one a second, up to 5 at once
+        TokenBucket bucket = new TokenBucket(60, 5, now::get);
+        long maxWait = TimeUnit.SECONDS.toNanos(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(1, maxWait));
+        }
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.reserve(1, maxWait), 1000);
+        // The next caller queues behind the reservation
+        assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.reserve(1, maxWait), 1000);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, bucket.reserve(5, maxWait));
+    }
+
+    @Test
+    public void refusesWithoutTakingWhenTheWaitIsTooLong() {
+        TokenBucket bucket = new TokenBucket(60, 2, now::get);
+
+        assertEquals(0, bucket.reserve(2, 0));
+        assertEquals(-1, bucket.reserve(1, TimeUnit.MILLISECONDS.toNanos(500)));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, bucket.reserve(1, 0));
+    }
+
+    @Test
+    public void chargesOversizedRequestsOneBurst() {
+        TokenBucket bucket = new TokenBucket(6000, 1000, now::get);
+
+        // 8000 tokens could never fit a 1000-token bucket; it goes through once the bucket is full
+        assertEquals(0, bucket.reserve(8000, 0));
+        assertEquals(-1, bucket.reserve(1, 0));
+    }
+
+    @Test
+    public void refundedTokensCanBeTakenAgain() {
+        TokenBucket bucket = new TokenBucket(60, 2, now::get);
+
+        assertEquals(0, bucket.reserve(2, 0));
+        bucket.refund(1);
+        assertEquals(0, bucket.reserve(1, 0));
+        // Never above the burst
+        bucket.refund(10);
+        assertEquals(0, bucket.reserve(2, 0));
+        assertEquals(-1, bucket.reserve(1, 0));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.app.eval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HashingEmbeddingModelTest {
+    private final HashingEmbeddingModel model = new HashingEmbeddingModel(384);
+
+    @Test
+    public void embedsDeterministicallyToUnitVectors() {
+        float[] first = model.embed("The Hobbit by J.R.R. Tolkien");
+
+        assertArrayEquals(first, new HashingEmbeddingModel(384).embed("the hobbit, by j.r.r. tolkien"));
+        assertEquals(1.0, dot(first, first), 1e-4);
+        assertEquals(1.0, dot(model.embed(""), model.embed("")), 1e-6);
+        assertEquals(384, model.dimensions());
+        assertEquals(2, model.embed(List.of("a", "b")).size());
+    }
+
+    @Test
+    public void sharedWordsMeanCloserVectors() {
+        float[] query = model.embed("dragons and wizards");
+
+        double related = dot(query, model.embed("a tale of dragons and wizards in the north"));
+        double unrelated = dot(query, model.embed("detective solves a murder in london"));
+        assertTrue(related > unrelated + 0.3, related + " vs " + unrelated);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.app.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.app.search.ExactVectorSearchEngine;
+import com.example.app.search.SpaceType;
+import com.example.app.search.VectorHit;
+import com.example.app.search.VectorSearchEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+public class SearchEvaluatorTest {
+
+    @Test
+    public void recallIgnoresOrderAndNdcgDoesNot() {
+        List<String> truth = List.of("a", "b", "c", "d");
+
+        assertEquals(1.0, SearchEvaluator.recall(truth, List.of("d", "c", "b", "a")), 1e-9);
+        assertEquals(0.5, SearchEvaluator.recall(truth, List.of("a", "x", "b", "y")), 1e-9);
+        assertEquals(1.0, SearchEvaluator.ndcg(truth, truth), 1e-9);
+        double reversed = SearchEvaluator.ndcg(truth, List.of("d", "c", "b", "a"));
+        assertTrue(reversed < 1.0 && reversed > 0.5, "reversed order ndcg " + reversed);
+        assertEquals(0.0, SearchEvaluator.ndcg(truth, List.of("w", "x", "y", "z")), 1e-9);
+    }
+
+    @Test
+    public void exactConfigMatchesGroundTruthAndSlowEngineShowsInLatency() throws Exception {
+        List<SearchEvaluation.Doc> docs = randomDocs(500, 32);
+        ExactVectorSearchEngine reference = new ExactVectorSearchEngine(SpaceType.COSINESIMIL, 32);
+        docs.forEach(doc -> reference.put(doc.id(), doc.vector(), null));
+        SearchEvaluator evaluator = new SearchEvaluator(reference, SearchEvaluation.perturbed(docs, 20), 10);
+
+        EvaluationResult flat = evaluator.evaluate("flat", SearchEvaluation.engine("flat", 32, docs), 1);
+        assertEquals(1.0, flat.recall(), 1e-6);
+        assertEquals(1.0, flat.ndcg(), 1e-6);
+        assertEquals(20, flat.queries());
+
+        VectorSearchEngine slow = (query, k) -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return reference.search(query, k);
+        };
+        EvaluationResult delayed = evaluator.evaluate("slow", slow, 0);
+        assertTrue(delayed.p50Ms() >= 5, "p50 " + delayed.p50Ms());
+        assertTrue(delayed.qps() < 200, "qps " + delayed.qps());
+        assertTrue(delayed.p50Ms() <= delayed.p99Ms() && delayed.p99Ms() <= delayed.maxMs());
+    }
+
+    @Test
+    public void l2RanksUnnormalizedVectorsDifferentlyFromCosine() throws Exception {
+        // Same direction, different lengths: cosine ties them, l2 prefers the one closest in length
+        ExactVectorSearchEngine cosine = new ExactVectorSearchEngine(SpaceType.COSINESIMIL, 2);
+        List<SearchEvaluation.Doc> docs = List.of(
+            new SearchEvaluation.Doc("long", new float[] {10, 0}),
+            new SearchEvaluation.Doc("short", new float[] {0.9f, 0.1f}));
+        docs.forEach(doc -> cosine.put(doc.id(), doc.vector(), null));
+        List<float[]> queries = List.of(new float[] {1, 0});
+        SearchEvaluator evaluator = new SearchEvaluator(cosine, queries, 1);
+
+        List<VectorHit> hits = SearchEvaluation.engine("exact:l2", 2, docs).search(queries.get(0), 1);
+        assertEquals("short", hits.get(0).id());
+        assertNotEquals(1.0, evaluator.evaluate("exact:l2", SearchEvaluation.engine("exact:l2", 2, docs), 0).recall());
+    }
+
+    @Test
+    public void readsExportLinesAndTextQueries() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String export = "{\"id\":\"7\",\"cursor\":\"c\",\"source\":{\"title\":\"x\",\"embedding\":[1,0,0]}}\n"
+            + "{\"id\":\"8\",\"cursor\":\"c\",\"source\":{\"title\":\"y\",\"embedding\":[0,1,0]}}\n";
+        HashingEmbeddingModel model = new HashingEmbeddingModel(3);
+
+        List<SearchEvaluation.Doc> docs = SearchEvaluation.documents(SearchEvaluation.readJson(mapper, export), model);
+        List<float[]> queries = SearchEvaluation.queries(mapper,
+            "dragons and wizards\n{\"vector\":[0,0,1]}\n{\"query\":\"space opera\"}\n", model, 3);
+
+        assertEquals(List.of("7", "8"), docs.stream().map(SearchEvaluation.Doc::id).toList());
+        assertEquals(3, queries.size());
+        assertEquals(1.0f, queries.get(1)[2]);
+    }
+
+    private static List<SearchEvaluation.Doc> randomDocs(int count, int dims) {
+        SplittableRandom random = new SplittableRandom(3);
+        List<SearchEvaluation.Doc> docs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float[] v = new float[dims];
+            for (int d = 0; d < dims; d++) v[d] = (float) random.nextGaussian();
+            docs.add(new SearchEvaluation.Doc(Integer.toString(i), v));
+        }
+        return docs;
+    }
+}
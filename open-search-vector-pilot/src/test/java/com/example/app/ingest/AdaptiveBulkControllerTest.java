@@ -0,0 +1,71 @@
+package com.example.app.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveBulkControllerTest {
+
+    @Test
+    public void growsAdditivelyWhileFastAndBacksOffMultiplicatively() throws Exception {
+        AdaptiveBulkController controller = new AdaptiveBulkController(100, 200, 1000, 100 * 1024 * 1024, 4, 500);
+
+        for (int i = 0; i < 12; i++) {
+            controller.onResponse(controller.acquire(), controller.batchDocs(), 1000, 50, 0);
+        }
+        assertEquals(800, controller.batchDocs());
+        assertEquals(3, controller.concurrency());
+
+        // Rejections mean the write queue is full: fewer bulks in flight, same size
+        controller.onResponse(controller.acquire(), 800, 1000, 50, 3);
+        assertEquals(800, controller.batchDocs());
+        assertEquals(1, controller.concurrency());
+
+        // A slow bulk means the bulks are too big
+        controller.onResponse(controller.acquire(), 800, 1000, 900, 0);
+        assertEquals(400, controller.batchDocs());
+        assertEquals(1, controller.concurrency());
+    }
+
+    @Test
+    public void decreasesOncePerWindow() throws Exception {
+        AdaptiveBulkController controller = new AdaptiveBulkController(10, 800, 1000, 100 * 1024 * 1024, 4, 500);
+        for (int i = 0; i < 24; i++) {
+            controller.onResponse(controller.acquire(), 100, 1000, 50, 0);
+        }
+        assertEquals(4, controller.concurrency());
+        assertEquals(920, controller.batchDocs());
+        long first = controller.acquire();
+        long second = controller.acquire();
+        long third = controller.acquire();
+
+        // All three were sent under the old limits, so each limit is cut only once
+        controller.onResponse(first, 100, 1000, 2000, 0);
+        controller.onResponse(second, 100, 1000, 2000, 0);
+        controller.onFailure(third);
+
+        assertEquals(460, controller.batchDocs());
+        assertEquals(2, controller.concurrency());
+    }
+
+    @Test
+    public void capsBatchByObservedDocumentSize() throws Exception {
+        AdaptiveBulkController controller = new AdaptiveBulkController(10, 500, 1000, 100_000, 2, 500);
+
+        controller.onResponse(controller.acquire(), 100, 100 * 1_000, 50, 0);
+
+        assertEquals(100, controller.batchDocs());
+    }
+
+    @Test
+    public void fixedControllerNeverAdapts() throws Exception {
+        AdaptiveBulkController controller = AdaptiveBulkController.fixed(500, 5 * 1024 * 1024, 3);
+
+        controller.onResponse(controller.acquire(), 500, 1000, 60_000, 500);
+
+        assertEquals(500, controller.batchDocs());
+        assertEquals(3, controller.concurrency());
+        assertTrue(controller.summary().contains("500 rejected items"));
+    }
+}
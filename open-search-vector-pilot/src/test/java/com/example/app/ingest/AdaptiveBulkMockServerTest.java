@@ -0,0 +1,139 @@
+package com.example.app.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestHighLevelClient;
+
+/**
+ * Runs the pipeline through the REST client against a fake _bulk endpoint that
+ * behaves like a small node: latency grows with bulk size, and every item is
+ * rejected with 429 while more than two bulks are in flight.
+ */
+public class AdaptiveBulkMockServerTest {
+    private static final int NODE_WRITE_THREADS = 2;
+    private static final double MILLIS_PER_DOC = 0.2;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger rejectedBulks = new AtomicInteger();
+    private HttpServer server;
+    private RestHighLevelClient client;
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/_bulk", this::bulk);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort(), "http")));
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void convergesBelowTheNodeCapacityAndIndexesEverything() throws IOException {
+        List<ObjectNode> books = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            books.add(mapper.createObjectNode().put("book_id", i).put("title", "Book " + i));
+        }
+        AdaptiveBulkController controller = new AdaptiveBulkController(20, 100, 1000, 5 * 1024 * 1024, 4, 50);
+        IngestPipeline pipeline = new IngestPipeline(mapper, "books", texts -> {
+            List<float[]> vectors = new ArrayList<>();
+            for (String text : texts) vectors.add(new float[] {text.length(), 1});
+            return vectors;
+        }, request -> client.bulk(request, RequestOptions.DEFAULT), new IngestOptions(50, 2, 4, 4, 1000, 5 * 1024 * 1024))
+            .withRetries(new RetryPolicy(20, 1, 20))
+            .withBulkController(controller);
+
+        IngestReport report = pipeline.run(books.iterator(), () -> { });
+
+        assertEquals(3000, report.indexed());
+        assertEquals(0, report.failed());
+        assertEquals(3000, stored.size());
+        // 250 docs take the 50ms target on this node, so the batch settles well under the 1000 doc maximum
+        assertTrue(controller.batchDocs() < 500, controller.summary());
+        assertTrue(controller.concurrency() <= 3, controller.summary());
+        assertTrue(rejectedBulks.get() < 20, "rejected bulks: " + rejectedBulks.get());
+    }
+
+    private void bulk(HttpExchange exchange) throws IOException {
+        int concurrent = inFlight.incrementAndGet();
+        try {
+            String[] lines = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < lines.length; i += 2) {
+                ids.add(mapper.readTree(lines[i]).get("index").get("_id").asText());
+            }
+            boolean reject = concurrent > NODE_WRITE_THREADS;
+            long took = reject ? 1 : Math.round(ids.size() * MILLIS_PER_DOC);
+            if (reject) {
+                rejectedBulks.incrementAndGet();
+            } else {
+                Thread.sleep(took);
+                stored.addAll(ids);
+            }
+            respond(exchange, bulkResponse(ids, took, reject));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private JsonNode bulkResponse(List<String> ids, long took, boolean reject) {
+        ObjectNode response = mapper.createObjectNode().put("took", took).put("errors", reject);
+        ArrayNode items = response.putArray("items");
+        for (String id : ids) {
+            ObjectNode item = items.addObject().putObject("index").put("_index", "books").put("_id", id);
+            if (reject) {
+                item.put("status", 429);
+                item.putObject("error")
+                    .put("type", "rejected_execution_exception")
+                    .put("reason", "rejected execution of coordinating operation");
+            } else {
+                item.put("_version", 1).put("result", "created").put("_seq_no", 0).put("_primary_term", 1).put("status", 201);
+                item.putObject("_shards").put("total", 1).put("successful", 1).put("failed", 0);
+            }
+        }
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, JsonNode body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.app.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.app.embedding.EmbeddingUnavailableException;
+import com.example.app.opensearch.RebuildInProgressException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class EmbeddingRetryQueueTest {
+    private final List<List<String>> batches = new ArrayList<>();
+    private final Set<String> broken = new HashSet<>();
+    private final List<String> unembedded = new ArrayList<>();
+    private boolean unavailable;
+    private boolean rebuilding;
+    private int sweeps;
+
+    private EmbeddingRetryQueue queue(int capacity, int batchSize, int maxAttempts) {
+        return new EmbeddingRetryQueue(capacity, batchSize, maxAttempts, ids -> {
+            batches.add(ids);
+            if (unavailable) throw new EmbeddingUnavailableException("circuit open", 1000);
+            if (rebuilding) throw new RebuildInProgressException("books is being rebuilt");
+            List<String> failed = ids.stream().filter(broken::contains).toList();
+            unembedded.removeIf(id -> ids.contains(id) && !failed.contains(id));
+            return failed;
+        }, max -> {
+            sweeps++;
+            return unembedded.stream().limit(max).toList();
+        });
+    }
+
+    @Test
+    public void retriesDeferredDocumentsInBatches() {
+        EmbeddingRetryQueue queue = queue(100, 2, 3);
+        assertEquals(0, queue.runOnce()); // startup sweep finds nothing
+        for (String id : List.of("1", "2", "3")) queue.defer(id);
+
+        assertEquals(2, queue.runOnce());
+        assertEquals(1, queue.runOnce());
+        assertEquals(0, queue.runOnce());
+
+        assertEquals(List.of(List.of("1", "2"), List.of("3")), batches);
+        assertEquals(new EmbeddingRetryQueue.Stats(0, 3, 0, 0, 1), queue.stats());
+    }
+
+    @Test
+    public void unavailableRoundsDoNotCountAsAttempts() {
+        EmbeddingRetryQueue queue = queue(100, 10, 2);
+        queue.defer("1");
+        unavailable = true;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, queue.runOnce());
+        }
+        assertEquals(1, queue.stats().pending());
+
+        unavailable = false;
+        assertEquals(1, queue.runOnce());
+        assertEquals(0, queue.stats().gaveUp());
+    }
+
+    @Test
+    public void documentsWaitOutARebuildWithoutUsingAttempts() {
+        EmbeddingRetryQueue queue = queue(100, 10, 2);
+        queue.defer("1");
+        rebuilding = true;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, queue.runOnce());
+        }
+        assertEquals(1, queue.stats().pending());
+
+        rebuilding = false;
+        assertEquals(1, queue.runOnce());
+        assertEquals(0, queue.stats().gaveUp());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttemptsUntilDeferredAgain() {
+        EmbeddingRetryQueue queue = queue(100, 10, 2);
+        broken.add("1");
+        unembedded.add("1");
+        queue.defer("1");
+
+        queue.runOnce();
+        queue.runOnce();
+        assertEquals(1, queue.stats().gaveUp());
+        assertEquals(0, queue.stats().pending());
+
+        // A later sweep skips it; a new write defers it afresh
+        queue.sweepLater();
+        assertEquals(0, queue.runOnce());
+        assertEquals(0, queue.stats().pending());
+        broken.clear();
+        queue.defer("1");
+        assertEquals(1, queue.runOnce());
+    }
+
+    @Test
+    public void overflowIsRecoveredBySweeping() {
+        EmbeddingRetryQueue queue = queue(2, 10, 3);
+        queue.runOnce();
+        for (String id : List.of("1", "2", "3")) {
+            unembedded.add(id);
+            queue.defer(id);
+        }
+        assertEquals(1, queue.stats().overflowed());
+        assertEquals(2, queue.stats().pending());
+
+        assertEquals(2, queue.runOnce());
+        assertEquals(1, queue.runOnce());
+        assertEquals(2, sweeps);
+        assertEquals(List.of(), unembedded);
+    }
+}
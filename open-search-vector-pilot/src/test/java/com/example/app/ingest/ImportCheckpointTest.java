@@ -0,0 +1,55 @@
+package com.example.app.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+public class ImportCheckpointTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void advancesOnlyOverContiguousPrefix() throws Exception {
+        Path file = Files.createTempDirectory("checkpoint").resolve("books.json.checkpoint.json");
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(mapper, file, "/data/books.json");
+
+        checkpoint.complete(0);
+        checkpoint.complete(2);
+        checkpoint.complete(3);
+        assertEquals(1, checkpoint.offset());
+
+        checkpoint.complete(1);
+        assertEquals(4, checkpoint.offset());
+    }
+
+    @Test
+    public void resumesFromSavedOffsetForSameSource() throws Exception {
+        Path file = Files.createTempDirectory("checkpoint").resolve("books.json.checkpoint.json");
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(mapper, file, "/data/books.json");
+        for (long i = 0; i < 500; i++) {
+            checkpoint.complete(i);
+        }
+        checkpoint.save();
+
+        assertEquals(500, ImportCheckpoint.open(mapper, file, "/data/books.json").offset());
+        // A checkpoint from another file does not apply
+        assertEquals(0, ImportCheckpoint.open(mapper, file, "/data/other.json").offset());
+
+        checkpoint.delete();
+        assertEquals(0, ImportCheckpoint.open(mapper, file, "/data/books.json").offset());
+    }
+
+    @Test
+    public void readerSkipsCommittedBooks() throws Exception {
+        Path file = Files.createTempFile("books", ".json");
+        Files.writeString(file, "[{\"book_id\":1,\"shelves\":[\"a\"]},{\"book_id\":2},{\"book_id\":3}]");
+
+        try (BookJsonReader reader = new BookJsonReader(mapper, file)) {
+            assertEquals(2, reader.skip(2));
+            assertEquals(3, reader.next().get("book_id").asInt());
+            assertEquals(0, reader.skip(5));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.app.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.app.service.BookDocuments;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.index.IndexResponse;
+import org.opensearch.core.index.shard.ShardId;
+import org.opensearch.core.rest.RestStatus;
+
+public class IngestPipelineTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<ObjectNode> books(int count) {
+        List<ObjectNode> books = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            books.add(mapper.createObjectNode().put("title", "t".repeat(i)));
+        }
+        return books;
+    }
+
+    // Records every indexed source by id and acknowledges each item
+    private BulkSink recordingSink(Map<String, JsonNode> indexed) {
+        return request -> {
+            BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                IndexRequest index = (IndexRequest) request.requests().get(i);
+                try {
+                    indexed.put(index.id(), mapper.readTree(index.source().utf8ToString()));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                IndexResponse response = new IndexResponse(new ShardId("books", "_na_", 0), index.id(), 1, 1, 1, true);
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, response);
+            }
+            return new BulkResponse(items, 5);
+        };
+    }
+
+    @Test
+    public void indexesEveryDocumentWithItsOwnEmbedding() throws IOException {
+        Map<String, JsonNode> indexed = new ConcurrentHashMap<>();
+        IngestPipeline pipeline = new IngestPipeline(mapper, "books", texts -> {
+            List<float[]> vectors = new ArrayList<>();
+            for (String text : texts) vectors.add(new float[] {text.length()});
+            return vectors;
+        }, recordingSink(indexed), new IngestOptions(7, 3, 2, 2, 10, 1024 * 1024));
+
+        IngestReport report = pipeline.run(books(250).iterator(), () -> { });
+
+        assertEquals(250, report.indexed());
+        assertEquals(0, report.failed());
+        assertEquals(250, indexed.size());
+        for (int id = 1; id <= 250; id++) {
+            JsonNode doc = indexed.get(String.valueOf(id));
+            // embeddingText prefixes the title with a space
+            assertEquals(id + 1, doc.get("embedding").get(0).asInt());
+            assertEquals(id, doc.get("title").asText().length());
+            assertEquals(BookDocuments.textHash(" " + "t".repeat(id)), doc.get(BookDocuments.TEXT_HASH_FIELD).asText());
+        }
+    }
+
+    @Test
+    public void embedsChunksInTheSameBatch() throws IOException {
+        Map<String, JsonNode> indexed = new ConcurrentHashMap<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        IngestPipeline pipeline = new IngestPipeline(mapper, "books", texts -> {
+            synchronized (batchSizes) {
+                batchSizes.add(texts.size());
+            }
+            List<float[]> vectors = new ArrayList<>();
+            for (String text : texts) vectors.add(new float[] {text.length()});
+            return vectors;
+        }, recordingSink(indexed), new IngestOptions(4, 1, 1, 2, 10, 1024 * 1024))
+            .withChunks(doc -> List.of("a", "bb"));
+
+        pipeline.run(books(4).iterator(), () -> { });
+
+        // Four document texts and two chunks each in one call
+        assertEquals(List.of(12), batchSizes);
+        JsonNode chunks = indexed.get("3").get(BookDocuments.CHUNKS_FIELD);
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(1).get("vector").get(0).asInt());
+        assertEquals(4, indexed.get("3").get("embedding").get(0).asInt());
+    }
+
+    @Test
+    public void propagatesEmbeddingFailure() {
+        IngestPipeline pipeline = new IngestPipeline(mapper, "books", texts -> {
+            throw new IllegalStateException("provider down");
+        }, recordingSink(new ConcurrentHashMap<>()), new IngestOptions(5, 2, 1, 1, 10, 1024 * 1024));
+
+        assertThrows(IllegalStateException.class, () -> pipeline.run(books(100).iterator(), () -> { }));
+    }
+
+    @Test
+    public void retriesRejectedItemsAndDeadLettersPermanentFailures() throws IOException {
+        Map<String, JsonNode> indexed = new ConcurrentHashMap<>();
+        Map<String, float[]> acknowledged = new ConcurrentHashMap<>();
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+        BulkSink recording = recordingSink(indexed);
+        // Every book is rejected with 429 once; book 107 is rejected as malformed every time
+        BulkSink flaky = request -> {
+            BulkRequest accepted = new BulkRequest();
+            BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                IndexRequest index = (IndexRequest) request.requests().get(i);
+                int attempt = attempts.merge(index.id(), 1, Integer::sum);
+                RestStatus status = index.id().equals("107") ? RestStatus.BAD_REQUEST
+                    : attempt == 1 ? RestStatus.TOO_MANY_REQUESTS : null;
+                if (status != null) {
+                    items[i] = BulkItemResponse.failure(i, DocWriteRequest.OpType.INDEX,
+                        new BulkItemResponse.Failure("books", index.id(), new IllegalStateException(status.name()), status));
+                } else {
+                    accepted.add(index);
+                    IndexResponse response = new IndexResponse(new ShardId("books", "_na_", 0), index.id(), 1, 1, 1, true);
+                    items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, response);
+                }
+            }
+            if (accepted.numberOfActions() > 0) recording.bulk(accepted);
+            return new BulkResponse(items, 5);
+        };
+        Path dir = Files.createTempDirectory("ingest");
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(mapper, dir.resolve("checkpoint.json"), "books.json");
+        List<ObjectNode> books = books(40);
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).put("book_id", 100 + i);
+        }
+        books.get(10).remove("book_id");
+
+        IngestReport report;
+        try (DeadLetterFile deadLetters = new DeadLetterFile(mapper, dir.resolve("dead-letter.ndjson"))) {
+            IngestPipeline pipeline = new IngestPipeline(mapper, "books", texts -> {
+                List<float[]> vectors = new ArrayList<>();
+                for (String text : texts) vectors.add(new float[] {text.length()});
+                return vectors;
+            }, flaky, new IngestOptions(4, 2, 2, 2, 8, 1024 * 1024))
+                .withRetries(new RetryPolicy(3, 1, 5))
+                .withCheckpoint(checkpoint)
+                .withDeadLetters(deadLetters)
+                .onIndexed((id, doc, embedding) -> acknowledged.put(id, embedding));
+            report = pipeline.run(books.iterator(), () -> { });
+        }
+
+        // Ids come from book_id; the book without one falls back to its 1-based offset (11)
+        assertEquals(39, report.indexed());
+        assertEquals(1, report.failed());
+        assertEquals(39, report.retried());
+        assertEquals(39, indexed.size());
+        assertEquals(11, indexed.get("11").get("title").asText().length());
+        assertEquals(1, indexed.get("100").get("title").asText().length());
+        List<String> deadLetters = Files.readAllLines(dir.resolve("dead-letter.ndjson"));
+        assertEquals(1, deadLetters.size());
+        JsonNode deadLetter = mapper.readTree(deadLetters.get(0));
+        assertEquals("107", deadLetter.get("id").asText());
+        assertEquals(400, deadLetter.get("status").asInt());
+        assertEquals(false, deadLetter.get("source").has("embedding"));
+        assertEquals(40, checkpoint.offset());
+        // Listeners only hear about documents OpenSearch acknowledged, after their retry
+        assertEquals(indexed.keySet(), acknowledged.keySet());
+        assertEquals(3, acknowledged.get("101")[0]);
+    }
+}
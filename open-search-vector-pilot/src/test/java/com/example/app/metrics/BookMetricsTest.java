@@ -0,0 +1,64 @@
+package com.example.app.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookMetricsTest {
+    private SimpleMeterRegistry registry;
+    private BookMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(new DefaultMeterObservationHandler(registry));
+        metrics = new BookMetrics(registry, observations);
+    }
+
+    @Test
+    public void timesCallsPerOperationAndOutcome() throws Exception {
+        assertEquals("ok", metrics.observe(BookMetrics.OPENSEARCH, "get", () -> "ok"));
+        assertThrows(IOException.class, () -> metrics.observe(BookMetrics.OPENSEARCH, "get", () -> {
+            throw new IOException("connection refused");
+        }));
+
+        assertEquals(1, timer("get", "none").count());
+        assertEquals(1, timer("get", "IOException").count());
+    }
+
+    @Test
+    public void asyncCallsStopWhenTheFutureCompletes() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> observed = metrics.observeAsync(BookMetrics.OPENSEARCH, "knn", () -> pending);
+
+        assertEquals(0, registry.find(BookMetrics.OPENSEARCH).timers().size());
+        pending.complete("hits");
+
+        assertEquals("hits", observed.join());
+        assertEquals(1, timer("knn", "none").count());
+    }
+
+    @Test
+    public void recordsResultCountsAndIngestOutcomes() {
+        metrics.searchResults("vector-search", 5);
+        metrics.searchResults("vector-search", 3);
+        metrics.ingested(98, 2, 7);
+
+        assertEquals(8, registry.get("books.search.results").tag("endpoint", "vector-search").summary().totalAmount());
+        assertEquals(98, registry.get("books.ingest.documents").tag("result", "indexed").counter().count());
+        assertEquals(2, registry.get("books.ingest.documents").tag("result", "failed").counter().count());
+    }
+
+    private Timer timer(String operation, String error) {
+        return registry.get(BookMetrics.OPENSEARCH).tag("operation", operation).tag("error", error).timer();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.app.opensearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestHighLevelClient;
+
+/**
+ * Drives the lifecycle through the REST client against a fake cluster that
+ * keeps a set of indices and one alias, and records every request.
+ */
+public class IndexLifecycleMockServerTest {
+    private static final String ALIAS = "books";
+    private static final String SHARDS = "{\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}}";
+    private static final String ACKNOWLEDGED = "{\"acknowledged\":true}";
+    private static final String GREEN = "{\"cluster_name\":\"test\",\"status\":\"green\",\"timed_out\":false,"
+        + "\"number_of_nodes\":1,\"number_of_data_nodes\":1,\"active_primary_shards\":1,\"active_shards\":1,"
+        + "\"relocating_shards\":0,\"initializing_shards\":0,\"unassigned_shards\":0,\"delayed_unassigned_shards\":0,"
+        + "\"number_of_pending_tasks\":0,\"number_of_in_flight_fetch\":0,\"task_max_waiting_in_queue_millis\":0,"
+        + "\"active_shards_percent_as_number\":100.0}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> indices = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private volatile String aliased;
+    private HttpServer server;
+    private RestHighLevelClient client;
+    private IndexLifecycle lifecycle;
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort(), "http")));
+        lifecycle = new IndexLifecycle(client, ALIAS, new IndexSettings(2, 1, "5s", 16, 128, 1, 1),
+            () -> "{\"properties\":{\"title\":{\"type\":\"text\"}}}");
+    }
+
+    @AfterEach
+    public void stop() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void createsTheFirstVersionBehindTheAliasOnce() throws Exception {
+        lifecycle.ensureExists();
+        lifecycle.ensureExists();
+
+        assertEquals(1, indices.size());
+        String version = indices.iterator().next();
+        assertTrue(version.startsWith(ALIAS + "-v"));
+        assertEquals(version, aliased);
+        JsonNode settings = mapper.readTree(bodies.get("PUT /" + version)).get("settings");
+        assertEquals("1", setting(settings, "number_of_replicas"));
+        assertEquals(1, requests.stream().filter(r -> r.startsWith("HEAD")).count());
+    }
+
+    @Test
+    public void rebuildLoadsWithoutReplicasThenSwapsAndPrunes() throws Exception {
+        indices.addAll(List.of(ALIAS + "-v0", ALIAS + "-v1"));
+        aliased = ALIAS + "-v1";
+        List<String> loaded = new ArrayList<>();
+
+        String live = lifecycle.rebuild(loaded::add);
+
+        assertEquals(List.of(live), loaded);
+        assertEquals(live, aliased);
+        JsonNode created = mapper.readTree(bodies.get("PUT /" + live)).get("settings");
+        assertEquals("0", setting(created, "number_of_replicas"));
+        assertEquals("-1", setting(created, "refresh_interval"));
+        assertEquals("2", setting(created, "number_of_shards"));
+        JsonNode restored = mapper.readTree(bodies.get("PUT /" + live + "/_settings"));
+        assertEquals("1", setting(restored, "number_of_replicas"));
+        assertEquals("5s", setting(restored, "refresh_interval"));
+        assertTrue(requests.contains("POST /" + live + "/_forcemerge"));
+        assertTrue(requests.contains("GET /_plugins/_knn/warmup/" + live));
+        // The alias moves in one call: remove from the old version, add to the new one
+        JsonNode actions = mapper.readTree(bodies.get("POST /_aliases")).get("actions");
+        assertEquals(2, actions.size());
+        assertEquals(ALIAS + "-v1", actions.get(0).get("remove").get("indices").get(0).asText());
+        assertEquals(live, actions.get(1).get("add").get("indices").get(0).asText());
+        // One previous version is kept for rollback, older ones are deleted
+        assertEquals(Set.of(ALIAS + "-v1", live), Set.copyOf(indices));
+    }
+
+    @Test
+    public void failedLoadKeepsTheLiveIndex() {
+        indices.add(ALIAS + "-v1");
+        aliased = ALIAS + "-v1";
+
+        assertThrows(IOException.class, () -> lifecycle.rebuild(index -> {
+            throw new IOException("embedding provider down");
+        }));
+
+        assertEquals(ALIAS + "-v1", aliased);
+        assertEquals(Set.of(ALIAS + "-v1"), Set.copyOf(indices));
+        assertFalse(requests.contains("POST /_aliases"));
+    }
+
+    @Test
+    public void secondRebuildIsRefusedWhileTheFirstRuns() throws Exception {
+        indices.add(ALIAS + "-v1");
+        aliased = ALIAS + "-v1";
+
+        String live = lifecycle.rebuild(index ->
+            assertThrows(RebuildInProgressException.class, () -> lifecycle.rebuild(other -> { })));
+
+        assertEquals(live, aliased);
+        assertFalse(lifecycle.rebuilding());
+    }
+
+    @Test
+    public void writesAreRefusedUntilTheRebuildSwaps() throws Exception {
+        indices.add(ALIAS + "-v1");
+        aliased = ALIAS + "-v1";
+
+        lifecycle.rebuild(index ->
+            assertThrows(RebuildInProgressException.class, () -> lifecycle.write(() -> "indexed")));
+
+        assertEquals("indexed", lifecycle.write(() -> "indexed"));
+    }
+
+    // Settings may be written flat ("index.x") or nested ("index": {"x"})
+    private static String setting(JsonNode settings, String name) {
+        JsonNode flat = settings.get("index." + name);
+        return flat != null ? flat.asText() : settings.get("index").get(name).asText();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String request = method + " " + path;
+        requests.add(request);
+        bodies.put(request, new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String name = path.substring(1).split("/")[0];
+        try {
+            if (method.equals("HEAD")) {
+                boolean exists = indices.contains(name) || ALIAS.equals(name) && aliased != null;
+                exchange.sendResponseHeaders(exists ? 200 : 404, -1);
+            } else if (path.equals("/_aliases")) {
+                for (JsonNode action : mapper.readTree(bodies.get(request)).get("actions")) {
+                    if (action.has("add")) aliased = action.get("add").get("indices").get(0).asText();
+                }
+                respond(exchange, ACKNOWLEDGED);
+            } else if (path.equals("/_alias/" + ALIAS)) {
+                respond(exchange, aliased == null ? "{}" : "{\"" + aliased + "\":{\"aliases\":{\"" + ALIAS + "\":{}}}}");
+            } else if (path.startsWith("/_cluster/health")) {
+                respond(exchange, GREEN);
+            } else if (path.startsWith("/_plugins/_knn/warmup") || path.endsWith("/_refresh") || path.endsWith("/_forcemerge")) {
+                respond(exchange, SHARDS);
+            } else if (path.endsWith("/_settings")) {
+                respond(exchange, ACKNOWLEDGED);
+            } else if (method.equals("PUT")) {
+                indices.add(name);
+                respond(exchange, "{\"acknowledged\":true,\"shards_acknowledged\":true,\"index\":\"" + name + "\"}");
+            } else if (method.equals("DELETE")) {
+                indices.remove(name);
+                respond(exchange, ACKNOWLEDGED);
+            } else if (method.equals("GET") && name.endsWith("*")) {
+                StringBuilder body = new StringBuilder("{");
+                synchronized (indices) {
+                    for (String index : indices) {
+                        if (body.length() > 1) body.append(',');
+                        body.append('"').append(index).append("\":{\"aliases\":{},\"mappings\":{},\"settings\":{}}");
+                    }
+                }
+                respond(exchange, body.append('}').toString());
+            } else {
+                exchange.sendResponseHeaders(400, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
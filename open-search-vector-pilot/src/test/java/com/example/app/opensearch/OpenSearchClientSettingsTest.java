@@ -0,0 +1,47 @@
+package com.example.app.opensearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class OpenSearchClientSettingsTest {
+
+    @Test
+    public void readsHostsAndPoolSettings() {
+        Map<String, String> properties = Map.of(
+            "books.opensearch.hosts", "http://node1:9200, https://node2:9201",
+            "books.opensearch.node-selection", "least-loaded",
+            "books.opensearch.max-connections", "64",
+            "books.opensearch.keep-alive-seconds", "15");
+
+        OpenSearchClientSettings settings = OpenSearchClientSettings.from(properties::get);
+
+        assertEquals(2, settings.hosts().size());
+        assertEquals("node2", settings.hosts().get(1).getHostName());
+        assertEquals("https", settings.hosts().get(1).getSchemeName());
+        assertEquals(9201, settings.hosts().get(1).getPort());
+        assertEquals(OpenSearchClientSettings.NodeSelection.LEAST_LOADED, settings.nodeSelection());
+        assertEquals(64, settings.maxConnections());
+        assertEquals(Duration.ofSeconds(15), settings.keepAlive());
+    }
+
+    @Test
+    public void defaultsToOneLocalNode() {
+        OpenSearchClientSettings settings = OpenSearchClientSettings.from(key -> null);
+
+        assertEquals(1, settings.hosts().size());
+        assertEquals(9200, settings.hosts().get(0).getPort());
+        assertEquals(OpenSearchClientSettings.NodeSelection.ROUND_ROBIN, settings.nodeSelection());
+        assertFalse(settings.sniff());
+    }
+
+    @Test
+    public void rejectsUnknownNodeSelection() {
+        assertThrows(IllegalArgumentException.class,
+            () -> OpenSearchClientSettings.from(Map.of("books.opensearch.node-selection", "random")::get));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.app.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class FlatVectorIndexTest {
+    private static final int DIMS = 8;
+
+    @Test
+    public void spreadsVectorsOverSegments() {
+        // Three vectors per segment, so 20 vectors span seven segments
+        FlatVectorIndex segmented = new FlatVectorIndex(DIMS, 1, 3 * DIMS);
+        FlatVectorIndex single = new FlatVectorIndex(DIMS, 1, Integer.MAX_VALUE);
+        Random random = new Random(3);
+        float[][] vectors = new float[20][];
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = new float[DIMS];
+            for (int d = 0; d < DIMS; d++) v[d] = (float) random.nextGaussian();
+            vectors[i] = VectorMath.normalize(v);
+            assertEquals(i, segmented.add(vectors[i]));
+            single.add(vectors[i]);
+        }
+        segmented.delete(4);
+        single.delete(4);
+
+        for (int i = 0; i < vectors.length; i++) {
+            assertArrayEquals(vectors[i], segmented.vector(i));
+        }
+        assertEquals(single.similarity(2, 17), segmented.similarity(2, 17), 1e-6);
+        float[] segmentedScores = new float[5];
+        float[] singleScores = new float[5];
+        assertArrayEquals(single.search(vectors[4], 5, singleScores), segmented.search(vectors[4], 5, segmentedScores));
+        assertArrayEquals(singleScores, segmentedScores, 1e-6f);
+    }
+}
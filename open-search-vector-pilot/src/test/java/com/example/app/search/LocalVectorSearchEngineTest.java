@@ -0,0 +1,122 @@
+package com.example.app.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class LocalVectorSearchEngineTest {
+    private static final int DIMS = 32;
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    @Test
+    public void exactSearchFindsTheStoredVector() {
+        LocalVectorSearchEngine engine = new LocalVectorSearchEngine(DIMS, 16, 100, 64, Integer.MAX_VALUE);
+        Random random = new Random(7);
+        float[] target = null;
+        for (int i = 0; i < 500; i++) {
+            float[] v = randomVector(random);
+            if (i == 123) target = v;
+            engine.put(String.valueOf(i), v, "{\"book_id\":" + i + "}");
+        }
+
+        List<VectorHit> hits = engine.search(target, 3);
+
+        assertEquals("123", hits.get(0).id());
+        assertEquals(1.0f, hits.get(0).score(), 1e-5f);
+        assertEquals("{\"book_id\":123}", hits.get(0).source());
+        assertTrue(hits.get(0).score() >= hits.get(1).score());
+    }
+
+    @Test
+    public void updatesAndRemovalsReplaceOldVectors() {
+        LocalVectorSearchEngine engine = new LocalVectorSearchEngine(DIMS, 16, 100, 64, Integer.MAX_VALUE);
+        Random random = new Random(11);
+        float[] first = randomVector(random);
+        float[] second = randomVector(random);
+        engine.put("a", first, null);
+        engine.put("a", second, null);
+        engine.put("b", first, null);
+
+        assertEquals(2, engine.size());
+        assertEquals("a", engine.search(second, 1).get(0).id());
+        assertEquals("b", engine.search(first, 1).get(0).id());
+
+        engine.remove("b");
+        assertEquals(1, engine.search(first, 5).size());
+
+        // A deferred embedding is put as an empty vector and must not leave the old one searchable
+        engine.put("a", new float[0], null);
+        assertEquals(0, engine.size());
+        assertEquals(0, engine.search(second, 5).size());
+    }
+
+    @Test
+    public void removeIfDropsEntriesBySource() {
+        LocalVectorSearchEngine engine = new LocalVectorSearchEngine(DIMS, 16, 100, 64, Integer.MAX_VALUE);
+        Random random = new Random(5);
+        for (int i = 0; i < 10; i++) {
+            engine.put(String.valueOf(i), randomVector(random), "{\"publisher\":\"" + (i % 2 == 0 ? "Tor" : "Ace") + "\"}");
+        }
+
+        assertEquals(5, engine.removeIf(source -> source.contains("Tor")));
+        assertEquals(5, engine.size());
+        for (VectorHit hit : engine.search(randomVector(random), 10)) {
+            assertTrue(hit.source().contains("Ace"));
+        }
+    }
+
+    @Test
+    public void hnswReturnsKLiveHitsWithDeletedSlots() {
+        // ef equal to k: tombstones must not take up candidate slots before compaction
+        LocalVectorSearchEngine engine = new LocalVectorSearchEngine(DIMS, 16, 100, 10, 0);
+        Random random = new Random(13);
+        for (int i = 0; i < 2000; i++) {
+            engine.put(String.valueOf(i), randomVector(random), null);
+        }
+        for (int i = 0; i < 2000; i += 3) {
+            engine.remove(String.valueOf(i));
+        }
+
+        for (int q = 0; q < 20; q++) {
+            List<VectorHit> hits = engine.search(randomVector(random), 10);
+            assertEquals(10, hits.size());
+            for (VectorHit hit : hits) {
+                assertTrue(Integer.parseInt(hit.id()) % 3 != 0);
+            }
+        }
+    }
+
+    @Test
+    public void hnswRecallMatchesExactSearch() {
+        // Threshold 0: every search goes through the graph
+        LocalVectorSearchEngine engine = new LocalVectorSearchEngine(DIMS, 16, 200, 100, 0);
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            engine.put(String.valueOf(i), randomVector(random), null);
+        }
+
+        int k = 10;
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<String> expected = new HashSet<>();
+            for (VectorHit hit : engine.exactSearch(query, k)) expected.add(hit.id());
+            for (VectorHit hit : engine.search(query, k)) {
+                if (expected.contains(hit.id())) found++;
+            }
+        }
+        double recall = (double) found / (queries * k);
+        assertTrue(recall >= 0.9, "recall@10 was " + recall);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.app.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class QuantizedVectorSearchEngineTest {
+    private static final int DIMS = 64;
+
+    private static float[] randomVector(Random random) {
+        float[] v = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) v[i] = (float) random.nextGaussian();
+        return v;
+    }
+
+    @Test
+    public void scalarQuantizerRoundTripsWithinOneStep() {
+        Random random = new Random(3);
+        List<float[]> sample = List.of(randomVector(random), randomVector(random), randomVector(random));
+        ScalarQuantizer quantizer = ScalarQuantizer.calibrate(sample);
+        float[] v = sample.get(1);
+
+        float[] decoded = quantizer.decode(quantizer.encode(v), 0);
+
+        for (int i = 0; i < DIMS; i++) {
+            assertEquals(v[i], decoded[i], 0.05f);
+        }
+        // Asymmetric scoring matches the dot product against the decoded vector
+        float expected = 0;
+        for (int i = 0; i < DIMS; i++) expected += v[i] * decoded[i];
+        assertEquals(expected, quantizer.prepare(v).dot(quantizer.encode(v), 0), 1e-3f);
+    }
+
+    @Test
+    public void hammingDistanceCountsDifferentBits() {
+        long[] a = {0b1011L, -1L};
+        long[] b = {0b0001L, -1L};
+
+        assertEquals(2, BinaryQuantizer.hamming(a, 0, b, 0, 2));
+    }
+
+    @Test
+    public void searchesBeforeAndAfterCalibration() {
+        QuantizedVectorSearchEngine engine = new QuantizedVectorSearchEngine(Quantization.INT8, DIMS, 100, 1);
+        Random random = new Random(5);
+        float[] early = randomVector(random);
+        engine.put("early", early, "{}");
+        assertEquals("early", engine.search(early, 1).get(0).id());
+
+        for (int i = 0; i < 300; i++) {
+            engine.put(String.valueOf(i), randomVector(random), "{}");
+        }
+        engine.remove("0");
+
+        assertEquals(300, engine.size());
+        assertEquals("early", engine.search(early, 1).get(0).id());
+        assertTrue(engine.memoryBytes() < 300L * DIMS * 4);
+    }
+
+    @Test
+    public void quantizedRecallAgainstExactSearch() {
+        Random random = new Random(11);
+        LocalVectorSearchEngine exact = new LocalVectorSearchEngine(DIMS, 16, 100, 64, Integer.MAX_VALUE);
+        QuantizedVectorSearchEngine int8 = new QuantizedVectorSearchEngine(Quantization.INT8, DIMS, 500, 1);
+        QuantizedVectorSearchEngine binary = new QuantizedVectorSearchEngine(Quantization.BINARY, DIMS, 500, 10);
+        // Clustered like real embeddings: a topic centre plus per-document noise
+        float[][] topics = new float[300][];
+        for (int t = 0; t < topics.length; t++) topics[t] = randomVector(random);
+        List<float[]> stored = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            float[] v = topics[i % topics.length].clone();
+            for (int d = 0; d < DIMS; d++) v[d] += (float) random.nextGaussian() * 0.3f;
+            stored.add(v);
+            exact.put(String.valueOf(i), v, null);
+            int8.put(String.valueOf(i), v, null);
+            binary.put(String.valueOf(i), v, null);
+        }
+
+        int int8Found = 0;
+        int binaryFound = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = stored.get(random.nextInt(stored.size())).clone();
+            for (int d = 0; d < DIMS; d++) query[d] += (float) random.nextGaussian() * 0.1f;
+            Set<String> expected = new HashSet<>();
+            for (VectorHit hit : exact.exactSearch(query, 10)) expected.add(hit.id());
+            for (VectorHit hit : int8.search(query, 10)) if (expected.contains(hit.id())) int8Found++;
+            for (VectorHit hit : binary.search(query, 10)) if (expected.contains(hit.id())) binaryFound++;
+        }
+
+        assertTrue(int8Found / (queries * 10.0) >= 0.9, "int8 recall " + int8Found);
+        assertTrue(binaryFound / (queries * 10.0) >= 0.9, "binary recall " + binaryFound);
+    }
+
+    @Test
+    public void growsCodeArraysWithoutOverflowing() {
+        // 1.5M int8 vectors of 1536 dims: doubling the length in int arithmetic would have gone negative
+        assertEquals(Integer.MAX_VALUE - 8, QuantizedVectorSearchEngine.grownLength(1_200_000_000L, 1_300_000_000L, "codes"));
+        assertEquals(4096, QuantizedVectorSearchEngine.grownLength(2048, 2049, "codes"));
+        assertThrows(IllegalStateException.class,
+            () -> QuantizedVectorSearchEngine.grownLength(1_200_000_000L, 1_500_000L * 1536, "codes"));
+    }
+}
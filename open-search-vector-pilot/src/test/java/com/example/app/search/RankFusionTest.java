@@ -0,0 +1,41 @@
+package com.example.app.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RankFusionTest {
+    private static VectorHit hit(String id, float score) {
+        return new VectorHit(id, score, "{\"id\":\"" + id + "\"}");
+    }
+
+    @Test
+    public void reciprocalRankFusionFavoursDocumentsInBothLists() {
+        RankFusion fusion = new RankFusion(RankFusion.Method.RRF, new double[] {1, 1}, 60);
+        List<VectorHit> lexical = List.of(hit("a", 12f), hit("b", 9f), hit("c", 1f));
+        List<VectorHit> vector = List.of(hit("d", 0.95f), hit("c", 0.9f));
+
+        List<VectorHit> fused = fusion.fuse(List.of(lexical, vector), 3);
+
+        assertEquals("c", fused.get(0).id());
+        assertEquals(1.0 / 63 + 1.0 / 62, fused.get(0).score(), 1e-6);
+        assertEquals("a", fused.get(1).id());
+        assertEquals("{\"id\":\"c\"}", fused.get(0).source());
+        assertEquals(3, fused.size());
+    }
+
+    @Test
+    public void weightedFusionNormalizesScoresPerList() {
+        RankFusion fusion = new RankFusion(RankFusion.Method.WEIGHTED, new double[] {0.3, 0.7}, 60);
+        // BM25 scores dwarf cosine scores; normalization keeps them comparable
+        List<VectorHit> lexical = List.of(hit("a", 20f), hit("b", 10f));
+        List<VectorHit> vector = List.of(hit("b", 0.9f), hit("a", 0.5f));
+
+        List<VectorHit> fused = fusion.fuse(List.of(lexical, vector), 10);
+
+        assertEquals("b", fused.get(0).id());
+        assertEquals(0.7, fused.get(0).score(), 1e-6);
+        assertEquals(0.3, fused.get(1).score(), 1e-6);
+    }
+}
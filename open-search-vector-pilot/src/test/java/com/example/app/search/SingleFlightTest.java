@@ -0,0 +1,120 @@
+package com.example.app.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    public void coalescesConcurrentCallsForSameKey() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> flight.execute("hobbit", () -> {
+                    calls.incrementAndGet();
+                    release.await();
+                    return 42;
+                })));
+            }
+            // Let every caller reach the in-flight call before it completes
+            while (flight.coalesced() < 15) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsAgainOnceTheCallCompletes() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("hobbit", calls::incrementAndGet);
+        flight.execute("hobbit", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void propagatesLoaderException() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("hobbit", () -> {
+            throw new IllegalStateException("provider down");
+        }));
+    }
+
+    @Test
+    public void waitersSeeTheLeadersError() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            pool.submit(() -> flight.execute("hobbit", () -> {
+                started.countDown();
+                release.await();
+                throw new OutOfMemoryError("embedding buffer");
+            }));
+            started.await();
+            Future<Integer> waiter = pool.submit(() -> flight.execute("hobbit", () -> 1));
+            while (flight.coalesced() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asyncCallersShareThePendingFuture() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+        CompletableFuture<Integer> first = flight.executeAsync("hobbit", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<Integer> second = flight.executeAsync("hobbit", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        pending.complete(42);
+
+        assertEquals(42, first.get());
+        assertEquals(42, second.get());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.coalesced());
+        // Completed calls leave the map, so the next caller loads again
+        flight.executeAsync("hobbit", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).get();
+        assertEquals(2, calls.get());
+    }
+}
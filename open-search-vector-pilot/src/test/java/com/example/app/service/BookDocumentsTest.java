@@ -0,0 +1,62 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.app.embedding.TextChunker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BookDocumentsTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void partialUpdateKeepsStoredTextFields() throws Exception {
+        JsonNode stored = mapper.readTree("{\"description\":\"A hole\",\"title\":\"The Hobbit\",\"author\":\"Tolkien\"}");
+        JsonNode partial = mapper.readTree("{\"title\":\"The Hobbit, or There and Back Again\"}");
+
+        String text = BookDocuments.embeddingText(BookDocuments.mergeTextFields(stored, partial));
+
+        assertEquals("A hole The Hobbit, or There and Back Again Tolkien", text);
+    }
+
+    @Test
+    public void metadataOnlyUpdateHasNoEmbeddingText() throws Exception {
+        assertFalse(BookDocuments.hasEmbeddingText(mapper.readTree("{\"ratings_count\":12,\"average_rating\":4.1}")));
+        assertTrue(BookDocuments.hasEmbeddingText(mapper.readTree("{\"author\":\"Tolkien\"}")));
+    }
+
+    @Test
+    public void hashChangesOnlyWithTheText() throws Exception {
+        JsonNode stored = mapper.readTree("{\"title\":\"The Hobbit\",\"author\":\"Tolkien\"}");
+        String storedHash = BookDocuments.textHash(BookDocuments.embeddingText(stored));
+
+        String sameText = BookDocuments.textHash(BookDocuments.embeddingText(
+            BookDocuments.mergeTextFields(stored, mapper.readTree("{\"title\":\"The Hobbit\"}"))));
+        String newText = BookDocuments.textHash(BookDocuments.embeddingText(
+            BookDocuments.mergeTextFields(stored, mapper.readTree("{\"title\":\"The Silmarillion\"}"))));
+
+        assertEquals(storedHash, sameText);
+        assertNotEquals(storedHash, newText);
+        assertEquals(64, storedHash.length());
+    }
+
+    @Test
+    public void chunksCarryTitleAndAuthor() throws Exception {
+        TextChunker chunker = new TextChunker(3, 1, 10);
+        JsonNode book = mapper.readTree("{\"description\":\"a b c d e\",\"title\":\"Dune\",\"author\":\"Herbert\"}");
+
+        assertEquals(List.of("a b c Dune Herbert", "c d e Dune Herbert"), BookDocuments.chunkTexts(book, chunker));
+    }
+
+    @Test
+    public void shortDescriptionChunkIsTheEmbeddingText() throws Exception {
+        JsonNode book = mapper.readTree("{\"description\":\"a  b\",\"title\":\"Dune\"}");
+
+        assertEquals(List.of(BookDocuments.embeddingText(book)), BookDocuments.chunkTexts(book, new TextChunker(3, 1, 10)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+public class BookFilterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void buildsBoolFilterClauses() {
+        BookFilter filter = BookFilter.of("eng, en-US", null, "Penguin", 4.0f, null, 100);
+
+        JsonNode clauses = filter.toQuery(mapper).get("bool").get("filter");
+
+        assertEquals(4, clauses.size());
+        assertEquals("en-US", clauses.get(0).get("terms").get("language").get(1).asText());
+        assertEquals("Penguin", clauses.get(1).get("terms").get("publisher").get(0).asText());
+        assertEquals(4.0, clauses.get(2).get("range").get("average_rating").get("gte").asDouble());
+        assertFalse(clauses.get(2).get("range").get("average_rating").has("lte"));
+        assertEquals(100, clauses.get(3).get("range").get("ratings_count").get("gte").asInt());
+    }
+
+    @Test
+    public void emptyFilterHasNoQuery() {
+        BookFilter filter = BookFilter.of(" ", null, null, null, null, null);
+
+        assertTrue(filter.isEmpty());
+        assertNull(filter.toQuery(mapper));
+    }
+
+    @Test
+    public void matchesSourcesLikeTheQuery() throws Exception {
+        BookFilter filter = BookFilter.of("eng", "Paperback,Hardcover", null, 3.5f, 4.5f, null);
+
+        assertTrue(filter.matches(mapper.readTree(
+            "{\"language\":\"eng\",\"format\":\"Hardcover\",\"average_rating\":4.2}")));
+        assertFalse(filter.matches(mapper.readTree(
+            "{\"language\":\"spa\",\"format\":\"Hardcover\",\"average_rating\":4.2}")));
+        assertFalse(filter.matches(mapper.readTree(
+            "{\"language\":\"eng\",\"format\":\"Paperback\",\"average_rating\":4.8}")));
+        assertFalse(filter.matches(mapper.readTree("{\"language\":\"eng\",\"format\":\"Paperback\"}")));
+    }
+
+    @Test
+    public void rejectsInvertedRatingRange() {
+        assertThrows(IllegalArgumentException.class, () -> BookFilter.of(null, null, null, 4.5f, 3.0f, null));
+    }
+}
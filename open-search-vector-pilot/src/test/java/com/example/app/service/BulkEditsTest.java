@@ -0,0 +1,77 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BulkEditsTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void parsesUpdateLinesAndKeepsBadOnesAsItems() {
+        String ndjson = """
+            {"id":"1","doc":{"title":"Dune","embedding_text_hash":"stale"}}
+
+            {"id":2,"doc":{"publisher":"Ace"}}
+            {"id":"3"}
+            not json
+            {"doc":{"title":"x"}}
+            """;
+
+        List<BulkEdits.Line> lines = BulkEdits.parse(mapper, ndjson, true, 100);
+
+        assertEquals(5, lines.size());
+        assertEquals("1", lines.get(0).id());
+        assertFalse(lines.get(0).doc().has(BookDocuments.TEXT_HASH_FIELD));
+        assertEquals("2", lines.get(1).id());
+        assertEquals(3, lines.get(1).number());
+        assertFalse(lines.get(2).valid());
+        assertEquals(400, lines.get(2).rejected().status());
+        assertEquals("3", lines.get(2).rejected().id());
+        assertTrue(lines.get(3).error().startsWith("Invalid JSON"));
+        assertNull(lines.get(4).id());
+    }
+
+    @Test
+    public void deleteLinesNeedOnlyAnId() {
+        List<BulkEdits.Line> lines = BulkEdits.parse(mapper, "{\"id\":\"1\"}\r\n{\"id\":\"\"}\n", false, 100);
+
+        assertTrue(lines.get(0).valid());
+        assertNull(lines.get(0).doc());
+        assertFalse(lines.get(1).valid());
+    }
+
+    @Test
+    public void rejectsEmptyAndOversizedRequests() {
+        assertThrows(IllegalArgumentException.class, () -> BulkEdits.parse(mapper, "\n\n", false, 100));
+        assertThrows(IllegalArgumentException.class,
+            () -> BulkEdits.parse(mapper, "{\"id\":\"1\"}\n{\"id\":\"2\"}\n{\"id\":\"3\"}", false, 2));
+    }
+
+    @Test
+    public void fieldUpdatesMustNotTouchEmbeddingText() throws Exception {
+        assertEquals("Ace", BulkEdits.fieldUpdate(mapper.readTree("{\"publisher\":\"Ace\"}")).get("publisher").asText());
+        assertThrows(IllegalArgumentException.class, () -> BulkEdits.fieldUpdate(mapper.readTree("{\"title\":\"Dune\"}")));
+        assertThrows(IllegalArgumentException.class, () -> BulkEdits.fieldUpdate(mapper.readTree("{\"embedding\":[1]}")));
+        assertThrows(IllegalArgumentException.class, () -> BulkEdits.fieldUpdate(mapper.readTree("[]")));
+    }
+
+    @Test
+    public void reportCountsFailedItems() {
+        BulkEditReport report = BulkEditReport.of(List.of(
+            new BulkItemStatus(1, "1", 200, "updated", null),
+            new BulkItemStatus(2, "2", 404, null, "document missing"),
+            new BulkItemStatus(3, null, 400, null, "Missing \"id\".")), 1);
+
+        assertEquals(3, report.total());
+        assertEquals(1, report.succeeded());
+        assertEquals(2, report.failed());
+        assertEquals(1, report.reembedded());
+    }
+}
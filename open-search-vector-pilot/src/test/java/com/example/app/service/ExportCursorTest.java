@@ -0,0 +1,27 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+public class ExportCursorTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void roundTripsSortValues() throws IOException {
+        Object[] sortValues = {42, "doc-7"};
+
+        Object[] decoded = ExportCursor.decode(mapper, ExportCursor.encode(mapper, sortValues));
+
+        assertArrayEquals(sortValues, decoded);
+    }
+
+    @Test
+    public void rejectsTamperedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> ExportCursor.decode(mapper, "not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> ExportCursor.decode(mapper, ""));
+    }
+}
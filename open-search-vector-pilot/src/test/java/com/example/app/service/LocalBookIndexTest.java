@@ -0,0 +1,110 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.example.app.search.InMemoryVectorIndex;
+import com.example.app.search.LocalVectorSearchEngine;
+import com.example.app.search.VectorHit;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class LocalBookIndexTest {
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private static InMemoryVectorIndex engine() {
+        return new LocalVectorSearchEngine(2, 16, 100, 100, 10_000);
+    }
+
+    // Snapshot of three books, paused after the first until released
+    private void snapshot(LocalBookIndex.Sink sink) {
+        sink.put("1", new float[] {1, 0}, "snapshot");
+        loading.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.put("2", new float[] {0, 1}, "snapshot");
+        sink.put("3", new float[] {1, 1}, "snapshot");
+    }
+
+    private static InMemoryVectorIndex awaitServing(LocalBookIndex index) throws InterruptedException {
+        for (int i = 0; i < 500 && index.serving() == null; i++) {
+            Thread.sleep(10);
+        }
+        return index.serving();
+    }
+
+    private static Map<String, String> sources(InMemoryVectorIndex engine) throws IOException {
+        Map<String, String> sources = new HashMap<>();
+        for (VectorHit hit : engine.search(new float[] {1, 1}, 10)) {
+            sources.put(hit.id(), hit.source());
+        }
+        return sources;
+    }
+
+    @Test
+    public void servesOnlyOnceLoadedAndKeepsWritesMadeMeanwhile() throws Exception {
+        try (LocalBookIndex index = new LocalBookIndex(LocalBookIndexTest::engine, this::snapshot)) {
+            index.reload();
+            loading.await(5, TimeUnit.SECONDS);
+
+            assertNull(index.serving());
+            index.put("2", new float[] {0, 1}, "written");
+            index.remove("3");
+            release.countDown();
+
+            Map<String, String> sources = sources(awaitServing(index));
+            assertEquals(Map.of("1", "snapshot", "2", "written"), sources);
+        }
+    }
+
+    @Test
+    public void removalByQueryDuringTheLoadStartsItOver() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        try (LocalBookIndex index = new LocalBookIndex(LocalBookIndexTest::engine, sink -> {
+            if (loads.incrementAndGet() == 1) {
+                snapshot(sink);
+            } else {
+                sink.put("1", new float[] {1, 0}, "reloaded");
+            }
+        })) {
+            index.reload();
+            loading.await(5, TimeUnit.SECONDS);
+            index.removeIf(source -> true);
+            release.countDown();
+
+            assertEquals(Map.of("1", "reloaded"), sources(awaitServing(index)));
+            assertEquals(2, loads.get());
+        }
+    }
+
+    @Test
+    public void reloadDropsTheEntriesOfTheOldIndex() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        try (LocalBookIndex index = new LocalBookIndex(LocalBookIndexTest::engine, sink -> {
+            if (loads.incrementAndGet() == 1) {
+                sink.put("old", new float[] {1, 0}, "old");
+            } else {
+                snapshot(sink);
+            }
+        })) {
+            index.reload();
+            assertEquals(Map.of("old", "old"), sources(awaitServing(index)));
+
+            index.reload();
+            loading.await(5, TimeUnit.SECONDS);
+            assertNull(index.serving());
+            release.countDown();
+
+            assertEquals(Map.of("1", "snapshot", "2", "snapshot", "3", "snapshot"), sources(awaitServing(index)));
+        }
+    }
+}
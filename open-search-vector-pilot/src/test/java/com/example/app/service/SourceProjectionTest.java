@@ -0,0 +1,49 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.opensearch.search.fetch.subphase.FetchSourceContext;
+
+public class SourceProjectionTest {
+    private static final String SOURCE = "{\"title\":\"The Hobbit\",\"author\":\"Tolkien\",\"embedding\":[0.1,0.2]}";
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void excludesTheVectorByDefault() throws Exception {
+        SourceProjection projection = SourceProjection.of(null, false, null);
+
+        assertFalse(projection.includesVector());
+        assertEquals("{\"title\":\"The Hobbit\",\"author\":\"Tolkien\"}", projection.apply(mapper, SOURCE));
+        FetchSourceContext context = projection.fetchSource();
+        assertArrayEquals(new String[] {"embedding", "chunks"}, context.excludes());
+    }
+
+    @Test
+    public void requestedFieldsOverrideTheEndpointDefault() throws Exception {
+        SourceProjection projection = SourceProjection.of(" title ", false, "title,author");
+
+        assertEquals("{\"title\":\"The Hobbit\"}", projection.apply(mapper, SOURCE));
+        assertArrayEquals(new String[] {"title"}, projection.fetchSource().includes());
+    }
+
+    @Test
+    public void includeVectorAddsTheEmbeddingToTheFieldList() throws Exception {
+        SourceProjection projection = SourceProjection.of(null, true, "title");
+
+        assertTrue(projection.includesVector());
+        assertEquals("{\"title\":\"The Hobbit\",\"embedding\":[0.1,0.2]}", projection.apply(mapper, SOURCE));
+        assertArrayEquals(new String[] {"title", "embedding"}, projection.fetchSource().includes());
+    }
+
+    @Test
+    public void namingTheEmbeddingIncludesIt() {
+        assertTrue(SourceProjection.of("title,embedding", false, null).includesVector());
+        assertFalse(SourceProjection.of("title", false, null).key()
+            .equals(SourceProjection.of("title", true, null).key()));
+    }
+}
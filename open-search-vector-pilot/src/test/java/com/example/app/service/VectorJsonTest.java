@@ -0,0 +1,97 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class VectorJsonTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void writesDocumentWithEmbedding() throws IOException {
+        JsonNode doc = mapper.readTree("{\"title\":\"The Hobbit\",\"ratings_count\":12,\"embedding\":[9.0]}");
+
+        JsonNode written = mapper.readTree(VectorJson.withEmbedding(mapper, doc, new float[] {0.25f, -1.5f}));
+
+        assertEquals("The Hobbit", written.get("title").asText());
+        assertEquals(12, written.get("ratings_count").asInt());
+        // The old embedding is replaced, not duplicated
+        assertEquals(2, written.get("embedding").size());
+        assertEquals(-1.5, written.get("embedding").get(1).asDouble());
+    }
+
+    @Test
+    public void writesKnnQuery() throws IOException {
+        JsonNode query = mapper.readTree(VectorJson.knnQuery(mapper, new float[] {0.1f, 0.2f, 0.3f}, 5));
+
+        JsonNode embedding = query.get("knn").get("embedding");
+        assertEquals(5, embedding.get("k").asInt());
+        assertEquals(3, embedding.get("vector").size());
+        assertEquals(0.2f, embedding.get("vector").get(1).floatValue());
+        assertFalse(embedding.has("filter"));
+    }
+
+    @Test
+    public void writesFilterInsideKnnClause() throws IOException {
+        JsonNode filter = BookFilter.of("eng", null, null, 4.0f, null, null).toQuery(mapper);
+
+        JsonNode query = mapper.readTree(VectorJson.knnQuery(mapper, new float[] {0.1f, 0.2f}, 20, 200, filter));
+
+        JsonNode embedding = query.get("knn").get("embedding");
+        assertEquals(20, embedding.get("k").asInt());
+        assertEquals(200, embedding.get("method_parameters").get("ef_search").asInt());
+        assertEquals(filter.toString(), embedding.get("filter").toString());
+        assertEquals(1, query.size());
+    }
+
+    @Test
+    public void writesChunkVectorsAsNestedObjects() throws IOException {
+        JsonNode doc = mapper.readTree("{\"title\":\"Dune\",\"chunks\":[{\"vector\":[9.0]}]}");
+
+        JsonNode written = mapper.readTree(VectorJson.withEmbedding(mapper, doc, new float[] {1f},
+            List.of(new float[] {0.5f, 0.5f}, new float[] {0.25f, 0.75f})));
+
+        assertEquals(2, written.get("chunks").size());
+        assertEquals(0.75, written.get("chunks").get(1).get("vector").get(1).asDouble());
+        assertEquals(1, written.get("embedding").size());
+    }
+
+    @Test
+    public void leavesOutFailedEmbeddings() throws IOException {
+        JsonNode doc = mapper.readTree("{\"title\":\"The Hobbit\",\"embedding\":[1.0],\"chunks\":[{\"vector\":[1.0]}]}");
+
+        JsonNode written = mapper.readTree(VectorJson.withEmbedding(mapper, doc, new float[0], List.of()));
+
+        assertEquals("The Hobbit", written.get("title").asText());
+        assertFalse(written.has("embedding"));
+        assertFalse(written.has("chunks"));
+    }
+
+    @Test
+    public void writesNestedKnnQueryWithFilterOnTheBook() throws IOException {
+        JsonNode filter = BookFilter.of("eng", null, null, null, null, null).toQuery(mapper);
+
+        JsonNode query = mapper.readTree(VectorJson.nestedKnnQuery(mapper, new float[] {0.1f, 0.2f}, 10, 100, filter, "max"));
+
+        JsonNode nested = query.get("nested");
+        assertEquals("chunks", nested.get("path").asText());
+        assertEquals("max", nested.get("score_mode").asText());
+        JsonNode knn = nested.get("query").get("knn").get("chunks.vector");
+        assertEquals(10, knn.get("k").asInt());
+        assertEquals(100, knn.get("method_parameters").get("ef_search").asInt());
+        assertEquals(filter.toString(), knn.get("filter").toString());
+        assertFalse(query.has("bool"));
+    }
+
+    @Test
+    public void rejectsSizeLargerThanK() {
+        assertThrows(IllegalArgumentException.class, () -> new VectorQuery("hobbit", null, 5, 100, 10));
+        assertThrows(IllegalArgumentException.class, () -> new VectorQuery("hobbit", null, 50, 10, 10));
+    }
+}